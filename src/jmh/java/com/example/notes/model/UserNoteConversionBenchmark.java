@@ -0,0 +1,71 @@
+package com.example.notes.model;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Conversion of UserNote from and to BSON document with Spring Data converter, which runs for
+ * every note read or written by repositories
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserNoteConversionBenchmark {
+
+  private MappingMongoConverter converter;
+
+  private UserNote note;
+
+  private Document document;
+
+  @Setup
+  public void setup() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext context = new MongoMappingContext();
+    context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    context.afterPropertiesSet();
+
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+
+    note = new UserNote("owner", "Lorem ipsum dolor sit amet, consectetur adipiscing elit");
+    note.setId(new ObjectId().toHexString());
+    note.addUser("user1");
+    note.addUser("user2");
+
+    document = new Document();
+    converter.write(note, document);
+  }
+
+  @Benchmark
+  public Document write() {
+    Document target = new Document();
+    converter.write(note, target);
+    return target;
+  }
+
+  @Benchmark
+  public UserNote read() {
+    return converter.read(UserNote.class, document);
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.notes.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+
+/**
+ * Permit acquisition when all threads share one limiter, so every call contends on the same state.
+ * Limits are high enough that calls are never rejected and only acquisition is measured, with
+ * non zero refill interval, so token bucket does the same arithmetic as for real limits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RateLimiterBenchmark {
+
+  // More permits than all iterations take, refilled one per microsecond like a real limit would
+  private static final int LIMIT = 1_000_000_000;
+  private static final Duration PERIOD = Duration.ofSeconds(1000);
+
+  private RateLimiter resilience4j;
+
+  private TokenBucket bucket;
+
+  @Setup
+  public void setup() {
+    resilience4j = RateLimiter.of("benchmark",
+        RateLimiterConfig.custom().limitForPeriod(LIMIT).limitRefreshPeriod(PERIOD)
+            .timeoutDuration(Duration.ZERO).build());
+    bucket = new TokenBucket(LIMIT, PERIOD.toNanos());
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean resilience4jUncontended() {
+    return resilience4j.acquirePermission();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean resilience4jContended() {
+    return resilience4j.acquirePermission();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long tokenBucketUncontended() {
+    return bucket.tryAcquire(1);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public long tokenBucketContended() {
+    return bucket.tryAcquire(1);
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.notes.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CPU cost of note compression against saved bytes. Deflate throughput is reported together with
+ * "savedBytes" counter, so bytes saved per second of CPU can be compared between levels and
+ * content. Random content doesn't compress and shows the cost of a failed attempt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NoteCodecBenchmark {
+
+  private static final String[] LEVELS = {"INFO", "DEBUG", "WARN", "ERROR"};
+  private static final String[] WORDS = {"request", "user", "note", "completed", "failed",
+      "connection", "timeout", "retry", "cache", "shared", "update", "session", "token"};
+
+  @Param({"16384", "262144"})
+  public int size;
+
+  @Param({"log", "text", "random"})
+  public String content;
+
+  @Param({"1", "6", "9"})
+  public int level;
+
+  private String note;
+
+  private byte[] data;
+
+  private byte[] compressed;
+
+  /**
+   * Bytes saved by compression, reported per second next to deflate throughput
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Saved {
+
+    public long savedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      savedBytes = 0;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    note = generate(content, size, new Random(42));
+    data = note.getBytes(StandardCharsets.UTF_8);
+    compressed = NoteCodec.deflate(data, level);
+  }
+
+  @Benchmark
+  public byte[] deflate(Saved saved) {
+    byte[] result = NoteCodec.deflate(data, level);
+    saved.savedBytes += Math.max(0, data.length - result.length);
+    return result;
+  }
+
+  @Benchmark
+  public String inflate() {
+    return NoteCodec.inflate(compressed);
+  }
+
+  @Benchmark
+  public String searchText() {
+    return NoteCodec.searchText(note);
+  }
+
+  private static String generate(String content, int size, Random random) {
+    StringBuilder sb = new StringBuilder(size + 128);
+    while (sb.length() < size) {
+      switch (content) {
+        // Application log lines with timestamps and ids
+        case "log" -> sb.append("2025-03-10T06:").append(10 + random.nextInt(50)).append(':')
+            .append(10 + random.nextInt(50)).append('.').append(random.nextInt(1000)).append(' ')
+            .append(LEVELS[random.nextInt(LEVELS.length)]).append(" [exec-")
+            .append(random.nextInt(200)).append("] ").append(WORDS[random.nextInt(WORDS.length)])
+            .append(' ').append(WORDS[random.nextInt(WORDS.length)]).append(" id=")
+            .append(Long.toHexString(random.nextLong())).append('\n');
+        case "text" -> sb.append(WORDS[random.nextInt(WORDS.length)])
+            .append(random.nextInt(10) == 0 ? ". " : " ");
+        default -> sb.append((char) (33 + random.nextInt(94)));
+      }
+    }
+
+    return sb.substring(0, size);
+  }
+}
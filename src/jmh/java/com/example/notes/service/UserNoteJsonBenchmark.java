@@ -0,0 +1,58 @@
+package com.example.notes.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import com.example.notes.dto.UserNoteDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson serialization of note lists with the same mapper settings as the application
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserNoteJsonBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int size;
+
+  @Param({"32", "4096"})
+  private int noteLength;
+
+  private List<UserNoteDTO> notes;
+
+  // Writer is resolved once, as message converter does for each response type
+  private ObjectWriter writer;
+
+  @Setup
+  public void setup() {
+    String text = "x".repeat(noteLength);
+    notes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++)
+      notes.add(new UserNoteDTO(Integer.toHexString(i), text));
+
+    writer = Jackson2ObjectMapperBuilder.json().build().writerFor(UserNoteDTO[].class);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return writer.writeValueAsBytes(notes.toArray(UserNoteDTO[]::new));
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.notes.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.model.UserNote;
+
+/**
+ * Mapping of note entities into DTOs for list responses
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserNoteMappingBenchmark {
+
+  @Param({"100", "1000", "100000"})
+  private int size;
+
+  private List<UserNote> notes;
+
+  @Setup
+  public void setup() {
+    notes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      UserNote un = new UserNote("owner", "Lorem ipsum dolor sit amet " + i);
+      un.setId(Integer.toHexString(i));
+      notes.add(un);
+    }
+  }
+
+  @Benchmark
+  public List<UserNoteDTO> mapUserNotes() {
+    return UserNoteService.mapUserNotes(notes);
+  }
+}
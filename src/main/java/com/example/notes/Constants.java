@@ -14,4 +14,11 @@ public class Constants {
   public static final String SIGNUP_URL = BASE_AUTH + "/signup";
   public static final String BASE_NOTES_URL = "/notes";
   public static final String SEARCH_NOTES_URL = "/search";
+  public static final String EXPORT_NOTES_URL = BASE_NOTES_URL + "/export";
+  public static final String BULK_NOTES_URL = BASE_NOTES_URL + "/_bulk";
+  public static final String SYNC_NOTES_URL = BASE_NOTES_URL + "/sync";
+  public static final String STREAM_NOTES_URL = BASE_NOTES_URL + "/stream";
+
+  // Response header with cursor for the next page
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 }
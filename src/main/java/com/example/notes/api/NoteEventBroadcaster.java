@@ -0,0 +1,292 @@
+package com.example.notes.api;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.dto.NoteEventDTO;
+import com.example.notes.ratelimit.KeyedRateLimit;
+import com.example.notes.ratelimit.KeyedRateLimiter;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.service.NoteChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes note changes to connected owners and shared users as Server-Sent Events. Idle connection
+ * is just an async request, so it doesn't hold a thread. Each connection has bounded queue of
+ * events drained by small pool of sender threads, so slow client never blocks the writer of the
+ * note. Connection with full queue is evicted and client must reconnect and sync. Servlet writes
+ * block while client doesn't read, so connection whose write takes longer than send timeout is
+ * evicted too and its sender thread is replaced in the pool until the write fails.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class NoteEventBroadcaster {
+
+  private static Logger LOG = LoggerFactory.getLogger(NoteEventBroadcaster.class);
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private KeyedRateLimiter limiter;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  // Open connections by user name
+  private final ConcurrentMap<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+  private final AtomicInteger count = new AtomicInteger();
+
+  // Sender pool, its core size grows by one for every thread stuck in write of evicted connection
+  private ThreadPoolExecutor pool;
+
+  private ExecutorService senders;
+
+  private ScheduledExecutorService heartbeat;
+
+  private Counter evicted;
+
+  @PostConstruct
+  public void init() {
+    NotesProperties.Stream config = props.getStream();
+    pool = new ThreadPoolExecutor(config.getSenders(), Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new CustomizableThreadFactory("note-stream-"));
+    senders = ExecutorServiceMetrics.monitor(registry, pool, "notes.stream");
+    heartbeat = Executors
+        .newSingleThreadScheduledExecutor(new CustomizableThreadFactory("note-heartbeat-"));
+    long period = config.getHeartbeat().toMillis();
+    heartbeat.scheduleAtFixedRate(this::heartbeat, period, period, TimeUnit.MILLISECONDS);
+    long check = Math.max(1, config.getSendTimeout().toMillis() / 2);
+    heartbeat.scheduleAtFixedRate(this::evictStuck, check, check, TimeUnit.MILLISECONDS);
+
+    registry.gauge("notes.stream.connections", count);
+    evicted = registry.counter("notes.stream.evicted");
+  }
+
+  @PreDestroy
+  public void destroy() {
+    heartbeat.shutdownNow();
+    senders.shutdownNow();
+    connections.values().forEach(set -> set.forEach(Connection::close));
+  }
+
+  /**
+   * Open new event stream for given user
+   * 
+   * @param name User Name
+   * @return SseEmitter that stays open until timeout, client disconnect or eviction
+   * @throws RateLimitExceededException if user has too many connections or exceeded rate limit
+   */
+  public SseEmitter subscribe(String name) {
+    limiter.acquirePermission("api", "subscribe", KeyedRateLimit.Key.PRINCIPAL, name, 1);
+
+    NotesProperties.Stream config = props.getStream();
+    Connection connection = new Connection(name, new SseEmitter(config.getTimeout().toMillis()),
+        config.getBufferSize());
+    // Check and add under the map entry lock, so concurrent subscribe can't exceed the limit and
+    // remove of the last connection can't drop the set the connection is added to
+    connections.compute(name, (user, set) -> {
+      if (set == null)
+        set = ConcurrentHashMap.newKeySet();
+      if (set.size() >= config.getMaxConnectionsPerUser())
+        throw new RateLimitExceededException("stream", config.getHeartbeat());
+
+      set.add(connection);
+      count.incrementAndGet();
+      return set;
+    });
+    LOG.debug("Opened event stream for user: {}", name);
+    return connection.emitter;
+  }
+
+  /**
+   * Queue note change for all connections of the owner and shared users
+   * 
+   * @param event NoteChangedEvent
+   */
+  @EventListener
+  public void onNoteChanged(NoteChangedEvent event) {
+    Set<DataWithMediaType> data = null;
+    for (String user : event.users()) {
+      Set<Connection> userConnections = connections.get(user);
+      if (userConnections == null || userConnections.isEmpty())
+        continue;
+
+      // Event is serialized once for all connections
+      if (data == null)
+        data = SseEmitter.event().name("note").data(
+            new NoteEventDTO(event.type().name(), event.id()), MediaType.APPLICATION_JSON).build();
+
+      for (Connection connection : userConnections)
+        connection.offer(data);
+    }
+  }
+
+  private void heartbeat() {
+    Set<DataWithMediaType> data = SseEmitter.event().comment("heartbeat").build();
+    connections.values().forEach(set -> set.forEach(connection -> connection.offer(data)));
+  }
+
+  private void evictStuck() {
+    long now = System.nanoTime();
+    long timeout = props.getStream().getSendTimeout().toNanos();
+    connections.values().forEach(set -> set.forEach(connection -> connection.evictStuck(now,
+        timeout)));
+  }
+
+  /**
+   * Add or remove spare sender thread in place of the one stuck in write
+   */
+  private synchronized void spare(int delta) {
+    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+  }
+
+  private void remove(Connection connection) {
+    connections.computeIfPresent(connection.user, (user, set) -> {
+      if (set.remove(connection))
+        count.decrementAndGet();
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  /**
+   * Single open event stream with its own queue of events
+   */
+  private class Connection {
+
+    // Send states besides start time of the write in progress
+    private static final long IDLE = Long.MIN_VALUE;
+    private static final long STUCK = Long.MAX_VALUE;
+
+    private final String user;
+
+    private final SseEmitter emitter;
+
+    private final BlockingQueue<Set<DataWithMediaType>> queue;
+
+    // Set while sender thread drains the queue, so events are written in order
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // Start of the write in progress in nanos, IDLE or STUCK once evicted during the write
+    private final AtomicLong sending = new AtomicLong(IDLE);
+
+    private volatile boolean closed;
+
+    Connection(String user, SseEmitter emitter, int bufferSize) {
+      this.user = user;
+      this.emitter = emitter;
+      this.queue = new ArrayBlockingQueue<>(bufferSize);
+      emitter.onCompletion(this::closed);
+      emitter.onTimeout(this::closed);
+      emitter.onError(e -> closed());
+    }
+
+    void offer(Set<DataWithMediaType> data) {
+      if (closed)
+        return;
+
+      if (!queue.offer(data)) {
+        LOG.warn("Evicting slow event stream consumer for user: {}", user);
+        evicted.increment();
+        close();
+        return;
+      }
+
+      schedule();
+    }
+
+    void close() {
+      closed();
+      emitter.complete();
+    }
+
+    /**
+     * Evict connection whose write takes longer than timeout. Only one of the watchdog and the
+     * sender changes the write state, so spare thread is added and removed exactly once.
+     */
+    void evictStuck(long now, long timeout) {
+      long start = sending.get();
+      if (start == IDLE || start == STUCK || now - start < timeout
+          || !sending.compareAndSet(start, STUCK))
+        return;
+
+      spare(1);
+      LOG.warn("Evicting event stream consumer that doesn't read for user: {}", user);
+      evicted.increment();
+      closed();
+      emitter.completeWithError(new IOException("Event stream write timed out"));
+    }
+
+    private void closed() {
+      closed = true;
+      queue.clear();
+      remove(this);
+    }
+
+    private void schedule() {
+      if (!closed && draining.compareAndSet(false, true)) {
+        try {
+          senders.execute(this::drain);
+        } catch (Exception e) {
+          draining.set(false);
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        Set<DataWithMediaType> data;
+        while (!closed && (data = queue.poll()) != null) {
+          long start = System.nanoTime();
+          sending.set(start);
+          emitter.send(data);
+          if (!sending.compareAndSet(start, IDLE))
+            break;
+        }
+      } catch (IOException | IllegalStateException e) {
+        // Client is gone, container completes the request
+        LOG.debug("Closing event stream for user: {} - {}", user, e.toString());
+        closed();
+      } finally {
+        // Thread is back, so spare one isn't needed anymore
+        if (sending.getAndSet(IDLE) == STUCK)
+          spare(-1);
+        draining.set(false);
+      }
+
+      // Event could be queued after the loop and before the flag is cleared
+      if (!queue.isEmpty())
+        schedule();
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.example.notes.api;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.dto.NoteEventDTO;
+import com.example.notes.ratelimit.KeyedRateLimit;
+import com.example.notes.ratelimit.KeyedRateLimiter;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.service.NoteChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Reactive mode variant of {@link NoteEventBroadcaster}. Each connection is a unicast sink with
+ * bounded queue drained by the connection's own subscriber, so there is no sender pool. Connection
+ * with full queue is evicted and client must reconnect and sync.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNoteEventBroadcaster {
+
+  private static Logger LOG = LoggerFactory.getLogger(ReactiveNoteEventBroadcaster.class);
+
+  private static final ServerSentEvent<NoteEventDTO> HEARTBEAT =
+      ServerSentEvent.<NoteEventDTO>builder().comment("heartbeat").build();
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private KeyedRateLimiter limiter;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  // Open connections by user name
+  private final ConcurrentMap<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+  private final AtomicInteger count = new AtomicInteger();
+
+  private Counter evicted;
+
+  @PostConstruct
+  public void init() {
+    registry.gauge("notes.stream.connections", count);
+    evicted = registry.counter("notes.stream.evicted");
+  }
+
+  @PreDestroy
+  public void destroy() {
+    connections.values().forEach(set -> set.forEach(Connection::close));
+  }
+
+  /**
+   * Open new event stream for given user. Connection is registered when response subscribes.
+   * 
+   * @param name User Name
+   * @return events that stay open until timeout, client disconnect or eviction
+   * @throws RateLimitExceededException if user has too many connections or exceeded rate limit
+   */
+  public Flux<ServerSentEvent<NoteEventDTO>> subscribe(String name) {
+    limiter.acquirePermission("api", "subscribe", KeyedRateLimit.Key.PRINCIPAL, name, 1);
+
+    NotesProperties.Stream config = props.getStream();
+    Set<Connection> current = connections.get(name);
+    if (current != null && current.size() >= config.getMaxConnectionsPerUser())
+      throw new RateLimitExceededException("stream", config.getHeartbeat());
+
+    return Flux.defer(() -> {
+      Connection connection = new Connection(name, config.getBufferSize());
+      connections.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).add(connection);
+      count.incrementAndGet();
+      LOG.debug("Opened event stream for user: {}", name);
+
+      return connection.sink.asFlux()
+          .mergeWith(Flux.interval(config.getHeartbeat()).map(i -> HEARTBEAT))
+          .take(config.getTimeout()).doFinally(signal -> remove(connection));
+    });
+  }
+
+  /**
+   * Queue note change for all connections of the owner and shared users
+   * 
+   * @param event NoteChangedEvent
+   */
+  @EventListener
+  public void onNoteChanged(NoteChangedEvent event) {
+    ServerSentEvent<NoteEventDTO> data = null;
+    for (String user : event.users()) {
+      Set<Connection> userConnections = connections.get(user);
+      if (userConnections == null || userConnections.isEmpty())
+        continue;
+
+      // Event is built once for all connections
+      if (data == null)
+        data = ServerSentEvent.builder(new NoteEventDTO(event.type().name(), event.id()))
+            .event("note").build();
+
+      for (Connection connection : userConnections)
+        connection.offer(data);
+    }
+  }
+
+  private void remove(Connection connection) {
+    connections.computeIfPresent(connection.user, (user, set) -> {
+      if (set.remove(connection))
+        count.decrementAndGet();
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  /**
+   * Single open event stream with its own queue of events
+   */
+  private class Connection {
+
+    private final String user;
+
+    private final Sinks.Many<ServerSentEvent<NoteEventDTO>> sink;
+
+    Connection(String user, int bufferSize) {
+      this.user = user;
+      this.sink = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+    }
+
+    // Writers of different notes emit concurrently and sink accepts one emitter at a time
+    synchronized void offer(ServerSentEvent<NoteEventDTO> data) {
+      Sinks.EmitResult result = sink.tryEmitNext(data);
+      if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+        LOG.warn("Evicting slow event stream consumer for user: {}", user);
+        evicted.increment();
+        sink.tryEmitComplete();
+      }
+    }
+
+    synchronized void close() {
+      sink.tryEmitComplete();
+    }
+  }
+}
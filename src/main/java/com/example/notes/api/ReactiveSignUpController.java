@@ -0,0 +1,45 @@
+package com.example.notes.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.notes.Constants;
+import com.example.notes.dto.UserDTO;
+import com.example.notes.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Tag(name = "UserSignUp", description = "UserSignUp API")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping(Constants.BASE_URL)
+public class ReactiveSignUpController {
+
+  @Autowired
+  private UserService userService;
+
+  /**
+   * Create a new user account. Password hashing blocks, so signup runs on bounded elastic
+   * scheduler instead of event loop.
+   * 
+   * @param user UserDTO
+   * @return completion
+   */
+  @Operation(summary = "Create New User", description = "Create a new user account.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @PostMapping(Constants.SIGNUP_URL)
+  public Mono<Void> createUser(@Valid @RequestBody UserDTO user) {
+    return Mono.<Void>fromCallable(() -> {
+      userService.createUser(user);
+      return null;
+    }).subscribeOn(Schedulers.boundedElastic());
+  }
+}
@@ -0,0 +1,304 @@
+package com.example.notes.api;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import com.example.notes.Constants;
+import com.example.notes.config.UserNotesException;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.BulkRequestDTO;
+import com.example.notes.dto.BulkResultDTO;
+import com.example.notes.dto.NoteEventDTO;
+import com.example.notes.dto.NoteSyncDTO;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNotePageDTO;
+import com.example.notes.dto.UserNoteSummaryDTO;
+import com.example.notes.repo.NoteView;
+import com.example.notes.service.ReactiveUserNoteService;
+import com.example.notes.service.UserVersionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same routes as {@link UserNoteController} for reactive mode. Responses, headers and status codes
+ * are the same, so clients don't depend on the mode.
+ */
+@Tag(name = "UserNote", description = "User's Note API")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping(Constants.BASE_URL)
+public class ReactiveUserNoteController {
+
+  // Clients may keep responses but must revalidate them with ETag
+  private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+  @Autowired
+  private ReactiveUserNoteService noteService;
+
+  @Autowired
+  private ReactiveNoteEventBroadcaster broadcaster;
+
+  /**
+   * Get a page of notes for the authenticated user. Returns 304 when If-None-Match has current
+   * ETag of all notes visible to the user.
+   * 
+   * @param authentication Authentication
+   * @param exchange Exchange to check If-None-Match
+   * @param limit Max number of notes in the page
+   * @param after Cursor from the previous page
+   * @param sort Sort order, either "id" or "updated"
+   * @param view Either "full" or "summary" with note id and preview only
+   * @return List with UserNoteDTO or UserNoteSummaryDTO for given user
+   */
+  @Operation(summary = "Get All Notes",
+      description = "Get a page of notes for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(Constants.BASE_NOTES_URL)
+  public Mono<ResponseEntity<List<?>>> getAll(Authentication authentication,
+      ServerWebExchange exchange, @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "id") String sort,
+      @RequestParam(defaultValue = "full") String view) {
+    String name = authentication.getName();
+
+    // Version is read before notes, so ETag is never newer than the page
+    return noteService.listTag(name).flatMap(etag -> exchange.checkNotModified(etag) ? Mono.empty()
+        : noteService.findAll(name, sort, after, limit, view)
+            .map(page -> toResponse(page, view, etag)));
+  }
+
+  /**
+   * Export all notes for the authenticated user as newline delimited JSON. Notes are read from the
+   * database cursor only as fast as client reads the response.
+   * 
+   * @param authentication Authentication
+   * @return notes one per line
+   */
+  @Operation(summary = "Export All Notes",
+      description = "Stream all notes for the authenticated user as newline delimited JSON.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(value = Constants.EXPORT_NOTES_URL, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<UserNoteDTO> export(Authentication authentication) {
+    return noteService.export(authentication.getName());
+  }
+
+  /**
+   * Open Server-Sent Events stream with changes of notes owned by or shared with the authenticated
+   * user.
+   * 
+   * @param authentication Authentication
+   * @return Events
+   */
+  @Operation(summary = "Stream Note Changes",
+      description = "Push note changes for the authenticated user as Server-Sent Events.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(value = Constants.STREAM_NOTES_URL, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<NoteEventDTO>> stream(Authentication authentication) {
+    return broadcaster.subscribe(authentication.getName());
+  }
+
+  /**
+   * Get a note by ID for the authenticated user. Returns 304 when If-None-Match has current ETag
+   * of the note.
+   * 
+   * @param authentication Authentication
+   * @param exchange Exchange to check If-None-Match
+   * @return UserNoteDTO
+   */
+  @Operation(summary = "Find Note", description = "Get a note by ID for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(Constants.BASE_NOTES_URL + "/{id}")
+  public Mono<ResponseEntity<UserNoteDTO>> get(Authentication authentication,
+      ServerWebExchange exchange, @PathVariable String id) {
+    String name = authentication.getName();
+    return noteService.noteTag(name, id).map(exchange::checkNotModified).defaultIfEmpty(false)
+        .flatMap(notModified -> notModified ? Mono.empty()
+            : noteService.find(name, id).map(this::withETag));
+  }
+
+  /**
+   * Create a new note for the authenticated user.
+   * 
+   * @param authentication Authentication
+   * @param req Request body with new note
+   * @return UserNoteDTO
+   */
+  @Operation(summary = "Create Note", description = "Create a new note for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @PostMapping(Constants.BASE_NOTES_URL)
+  public Mono<UserNoteDTO> create(Authentication authentication,
+      @Valid @RequestBody BaseUserNoteDTO dto) {
+    return noteService.add(authentication.getName(), dto.note());
+  }
+
+  /**
+   * Update an existing note by ID for the authenticated user. When If-Match is set note is updated
+   * only if it still has the same ETag, otherwise 412 is returned.
+   * 
+   * @param authentication Authentication
+   * @param req Request body with new note
+   * @param ifMatch ETag of the note or null to update any version
+   * @return UserNoteDTO
+   * @throws UserNotesException if If-Match is invalid
+   */
+  @Operation(summary = "Update Note",
+      description = "Update an existing note by ID for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @PutMapping(Constants.BASE_NOTES_URL)
+  public Mono<ResponseEntity<UserNoteDTO>> update(Authentication authentication,
+      @Valid @RequestBody UserNoteDTO dto,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+      throws UserNotesException {
+    return noteService.update(authentication.getName(), dto, UserVersionService.parse(ifMatch))
+        .map(this::withETag);
+  }
+
+  /**
+   * Delete a note by ID for the authenticated user.
+   * 
+   * @param authentication Authentication
+   * @param id
+   * @return completion
+   */
+  @Operation(summary = "Delete Note",
+      description = "Delete a note by ID for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @DeleteMapping(Constants.BASE_NOTES_URL + "/{id}")
+  public Mono<Void> delete(Authentication authentication, @PathVariable String id) {
+    return noteService.delete(authentication.getName(), id);
+  }
+
+  /**
+   * Share a note with another user for the authenticated user.
+   * 
+   * @param authentication Authentication
+   * @param noteId Note Id
+   * @param userId User Id to share with
+   * @return completion
+   */
+  @Operation(summary = "Share Note",
+      description = "Share a note with another user for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @PostMapping(Constants.BASE_NOTES_URL + "/{noteId}/share/{userId}")
+  public Mono<Void> share(Authentication authentication, @PathVariable String noteId,
+      @PathVariable String userId) {
+    return noteService.share(authentication.getName(), noteId, userId);
+  }
+
+  /**
+   * Execute batch of create, update, delete and share operations for the authenticated user.
+   * 
+   * @param authentication Authentication
+   * @param req Request body with list of operations
+   * @return List of BulkResultDTO in the same order as operations
+   */
+  @Operation(summary = "Bulk Operations",
+      description = "Execute batch of note operations for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @PostMapping(Constants.BULK_NOTES_URL)
+  public Mono<List<BulkResultDTO>> bulk(Authentication authentication,
+      @Valid @RequestBody BulkRequestDTO req) {
+    return noteService.bulk(authentication.getName(), req.operations());
+  }
+
+  /**
+   * Stop sharing a note with another user for the authenticated user.
+   * 
+   * @param authentication Authentication
+   * @param noteId Note Id
+   * @param userId User Id to stop sharing with
+   * @return completion
+   */
+  @Operation(summary = "Unshare Note",
+      description = "Stop sharing a note with another user for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @DeleteMapping(Constants.BASE_NOTES_URL + "/{noteId}/share/{userId}")
+  public Mono<Void> unshare(Authentication authentication, @PathVariable String noteId,
+      @PathVariable String userId) {
+    return noteService.unshare(authentication.getName(), noteId, userId);
+  }
+
+  /**
+   * Get notes changed and deleted since sync token for the authenticated user. Returns 410 when
+   * token is too old and full sync is required.
+   * 
+   * @param authentication Authentication
+   * @param token Token from the previous sync
+   * @param limit Max number of changed notes
+   * @return NoteSyncDTO with changes and the next token
+   */
+  @Operation(summary = "Sync Notes",
+      description = "Get notes changed since sync token for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation"),
+      @ApiResponse(responseCode = "410", description = "sync token expired")})
+  @GetMapping(Constants.SYNC_NOTES_URL)
+  public Mono<NoteSyncDTO> sync(Authentication authentication,
+      @RequestParam(required = false) String token,
+      @RequestParam(required = false) Integer limit) {
+    return noteService.sync(authentication.getName(), token, limit);
+  }
+
+  /**
+   * Search for notes based on keywords for the authenticated user. Cursor for the next page is
+   * returned in the X-Next-Cursor response header.
+   * 
+   * @param authentication Authentication
+   * @param query Search Query
+   * @param lang Language for stemming
+   * @param limit Max number of notes in the page
+   * @param after Cursor from the previous page
+   * @param view Either "full" or "summary" with note id and preview only
+   * @return List of UserNoteDTO or UserNoteSummaryDTO
+   */
+  @Operation(summary = "Search By Query",
+      description = "Search for notes based on keywords for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(Constants.SEARCH_NOTES_URL)
+  public Mono<ResponseEntity<List<?>>> search(Authentication authentication,
+      @RequestParam(required = true) String query, @RequestParam(required = false) String lang,
+      @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "full") String view) {
+    return noteService.search(authentication.getName(), query, lang, after, limit, view)
+        .map(page -> toResponse(page, view, null));
+  }
+
+  private ResponseEntity<UserNoteDTO> withETag(UserNoteDTO dto) {
+    return ResponseEntity.ok().eTag(UserVersionService.tag(dto.version())).cacheControl(REVALIDATE)
+        .body(dto);
+  }
+
+  private ResponseEntity<List<?>> toResponse(UserNotePageDTO page, String view, String etag) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (etag != null)
+      builder.eTag(etag).cacheControl(REVALIDATE);
+    if (page.next() != null)
+      builder.header(Constants.NEXT_CURSOR_HEADER, page.next());
+
+    // Service has already rejected unknown view, summary notes have preview as note text
+    List<?> body = NoteView.of(view) == NoteView.SUMMARY ? UserNoteSummaryDTO.of(page.notes())
+        : page.notes();
+    return builder.body(body);
+  }
+}
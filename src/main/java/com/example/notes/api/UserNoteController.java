@@ -1,7 +1,16 @@
 package com.example.notes.api;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,14 +18,30 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.notes.Constants;
 import com.example.notes.config.UserNotesException;
 import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.BulkRequestDTO;
+import com.example.notes.dto.BulkResultDTO;
+import com.example.notes.dto.NoteSyncDTO;
 import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNotePageDTO;
+import com.example.notes.dto.UserNoteSummaryDTO;
+import com.example.notes.repo.NoteView;
+import com.example.notes.service.UserNoteBulkService;
 import com.example.notes.service.UserNoteService;
+import com.example.notes.service.UserVersionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
@@ -29,33 +54,102 @@ import jakarta.validation.Valid;
 
 @Tag(name = "UserNote", description = "User's Note API")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping(Constants.BASE_URL)
 @SecurityScheme(type = SecuritySchemeType.APIKEY, name = "JSESSIONID", in = SecuritySchemeIn.COOKIE)
 @SecurityRequirement(name = "JSESSIONID")
 public class UserNoteController {
 
+  // Clients may keep responses but must revalidate them with ETag
+  private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
   @Autowired
   private UserNoteService noteService;
 
+  @Autowired
+  private UserNoteBulkService bulkService;
+
+  @Autowired
+  private UserVersionService versionService;
+
+  @Autowired
+  private NoteEventBroadcaster broadcaster;
+
+  @Autowired
+  private ObjectMapper mapper;
+
   /**
-   * Get a list of all notes for the authenticated user.
+   * Get a page of notes for the authenticated user. Cursor for the next page is returned in the
+   * X-Next-Cursor response header. Returns 304 when If-None-Match has current ETag of all notes
+   * visible to the user.
    * 
    * @param authentication Authentication
-   * @return List with UserNoteDTO for given user
+   * @param request Request to check If-None-Match
+   * @param limit Max number of notes in the page
+   * @param after Cursor from the previous page
+   * @param sort Sort order, either "id" or "updated"
+   * @param view Either "full" or "summary" with note id and preview only
+   * @return List with UserNoteDTO or UserNoteSummaryDTO for given user
    * @throws UserNotesException
    */
   @Operation(summary = "Get All Notes",
-      description = "Get a list of all notes for the authenticated user.")
+      description = "Get a page of notes for the authenticated user.")
   @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
   @GetMapping(Constants.BASE_NOTES_URL)
-  public List<UserNoteDTO> getAll(Authentication authentication) throws UserNotesException {
-    return noteService.findAll(authentication.getName());
+  public ResponseEntity<List<?>> getAll(Authentication authentication, WebRequest request,
+      @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "id") String sort,
+      @RequestParam(defaultValue = "full") String view) throws UserNotesException {
+    // Version is read before notes, so ETag is never newer than the page
+    String etag = versionService.listTag(authentication.getName());
+    if (request.checkNotModified(etag))
+      return null;
+
+    return toResponse(noteService.findAll(authentication.getName(), sort, after, limit, view),
+        view, etag);
   }
 
   /**
-   * Get a note by ID for the authenticated user.
+   * Export all notes for the authenticated user as newline delimited JSON. Each note is written to
+   * response as soon as it's read from the database cursor, so memory usage doesn't depend on
+   * number of notes and slow client just slows down reading from the cursor.
    * 
    * @param authentication Authentication
+   * @return Response body that writes notes one per line
+   * @throws UserNotesException
+   */
+  @Operation(summary = "Export All Notes",
+      description = "Stream all notes for the authenticated user as newline delimited JSON.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(value = Constants.EXPORT_NOTES_URL, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> export(Authentication authentication)
+      throws UserNotesException {
+    Stream<UserNoteDTO> notes = noteService.export(authentication.getName());
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+        .body(out -> writeNdjson(notes, out));
+  }
+
+  /**
+   * Open Server-Sent Events stream with changes of notes owned by or shared with the authenticated
+   * user. Each event has type of the change and note id.
+   * 
+   * @param authentication Authentication
+   * @return SseEmitter
+   */
+  @Operation(summary = "Stream Note Changes",
+      description = "Push note changes for the authenticated user as Server-Sent Events.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @GetMapping(value = Constants.STREAM_NOTES_URL, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(Authentication authentication) {
+    return broadcaster.subscribe(authentication.getName());
+  }
+
+  /**
+   * Get a note by ID for the authenticated user. Returns 304 when If-None-Match has current ETag
+   * of the note.
+   * 
+   * @param authentication Authentication
+   * @param request Request to check If-None-Match
    * @return UserNoteDTO
    * 
    * @throws UserNotesException
@@ -63,9 +157,13 @@ public class UserNoteController {
   @Operation(summary = "Find Note", description = "Get a note by ID for the authenticated user.")
   @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
   @GetMapping(Constants.BASE_NOTES_URL + "/{id}")
-  public UserNoteDTO get(Authentication authentication, @PathVariable String id)
-      throws UserNotesException {
-    return noteService.find(authentication.getName(), id);
+  public ResponseEntity<UserNoteDTO> get(Authentication authentication, WebRequest request,
+      @PathVariable String id) throws UserNotesException {
+    String etag = versionService.noteTag(authentication.getName(), id);
+    if (etag != null && request.checkNotModified(etag))
+      return null;
+
+    return withETag(noteService.find(authentication.getName(), id));
   }
 
   /**
@@ -85,10 +183,12 @@ public class UserNoteController {
   }
 
   /**
-   * Update an existing note by ID for the authenticated user.
+   * Update an existing note by ID for the authenticated user. When If-Match is set note is updated
+   * only if it still has the same ETag, otherwise 412 is returned.
    * 
    * @param authentication Authentication
    * @param req Request body with new note
+   * @param ifMatch ETag of the note or null to update any version
    * @return UserNoteDTO
    * @throws UserNotesException
    */
@@ -96,9 +196,12 @@ public class UserNoteController {
       description = "Update an existing note by ID for the authenticated user.")
   @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
   @PutMapping(Constants.BASE_NOTES_URL)
-  public UserNoteDTO update(Authentication authentication, @Valid @RequestBody UserNoteDTO dto)
+  public ResponseEntity<UserNoteDTO> update(Authentication authentication,
+      @Valid @RequestBody UserNoteDTO dto,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
       throws UserNotesException {
-    return noteService.update(authentication.getName(), dto);
+    return withETag(
+        noteService.update(authentication.getName(), dto, UserVersionService.parse(ifMatch)));
   }
 
   /**
@@ -136,19 +239,118 @@ public class UserNoteController {
   }
 
   /**
-   * Search for notes based on keywords for the authenticated user.
+   * Execute batch of create, update, delete and share operations for the authenticated user.
+   * Operations are independent and result is returned for each of them.
+   * 
+   * @param authentication Authentication
+   * @param req Request body with list of operations
+   * @return List of BulkResultDTO in the same order as operations
+   * @throws UserNotesException
+   */
+  @Operation(summary = "Bulk Operations",
+      description = "Execute batch of note operations for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @PostMapping(Constants.BULK_NOTES_URL)
+  public List<BulkResultDTO> bulk(Authentication authentication,
+      @Valid @RequestBody BulkRequestDTO req) throws UserNotesException {
+    return bulkService.execute(authentication.getName(), req.operations());
+  }
+
+  /**
+   * Stop sharing a note with another user for the authenticated user.
+   * 
+   * @param authentication Authentication
+   * @param noteId Note Id
+   * @param userId User Id to stop sharing with
+   * 
+   * @throws UserNotesException
+   */
+  @Operation(summary = "Unshare Note",
+      description = "Stop sharing a note with another user for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
+  @DeleteMapping(Constants.BASE_NOTES_URL + "/{noteId}/share/{userId}")
+  public void unshare(Authentication authentication, @PathVariable String noteId,
+      @PathVariable String userId) throws UserNotesException {
+    noteService.unshare(authentication.getName(), noteId, userId);
+  }
+
+  /**
+   * Get notes changed and deleted since sync token for the authenticated user. Without token all
+   * notes are returned page by page. Returns 410 when token is too old and full sync is required.
+   * 
+   * @param authentication Authentication
+   * @param token Token from the previous sync
+   * @param limit Max number of changed notes
+   * @return NoteSyncDTO with changes and the next token
+   * @throws UserNotesException
+   */
+  @Operation(summary = "Sync Notes",
+      description = "Get notes changed since sync token for the authenticated user.")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation"),
+      @ApiResponse(responseCode = "410", description = "sync token expired")})
+  @GetMapping(Constants.SYNC_NOTES_URL)
+  public NoteSyncDTO sync(Authentication authentication,
+      @RequestParam(required = false) String token, @RequestParam(required = false) Integer limit)
+      throws UserNotesException {
+    return noteService.sync(authentication.getName(), token, limit);
+  }
+
+  /**
+   * Search for notes based on keywords for the authenticated user. Cursor for the next page is
+   * returned in the X-Next-Cursor response header.
    * 
    * @param authentication Authentication
    * @param query Search Query
-   * @return List of UserNoteDTO
+   * @param lang Language for stemming
+   * @param limit Max number of notes in the page
+   * @param after Cursor from the previous page
+   * @param view Either "full" or "summary" with note id and preview only
+   * @return List of UserNoteDTO or UserNoteSummaryDTO
    * @throws UserNotesException
    */
   @Operation(summary = "Search By Query",
       description = "Search for notes based on keywords for the authenticated user.")
   @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "successful operation")})
   @GetMapping(Constants.SEARCH_NOTES_URL)
-  public List<UserNoteDTO> search(Authentication authentication,
-      @RequestParam(required = true) String query) throws UserNotesException {
-    return noteService.search(authentication.getName(), query);
+  public ResponseEntity<List<?>> search(Authentication authentication,
+      @RequestParam(required = true) String query, @RequestParam(required = false) String lang,
+      @RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "full") String view) throws UserNotesException {
+    return toResponse(
+        noteService.search(authentication.getName(), query, lang, after, limit, view), view,
+        null);
+  }
+
+  private ResponseEntity<UserNoteDTO> withETag(UserNoteDTO dto) {
+    return ResponseEntity.ok().eTag(UserVersionService.tag(dto.version())).cacheControl(REVALIDATE)
+        .body(dto);
+  }
+
+  private void writeNdjson(Stream<UserNoteDTO> notes, OutputStream out) throws IOException {
+    // Let servlet buffer decide when to flush instead of flushing after each note
+    ObjectWriter writer = mapper.writerFor(UserNoteDTO.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    try (notes; JsonGenerator gen = writer.createGenerator(out)) {
+      gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      Iterator<UserNoteDTO> it = notes.iterator();
+      while (it.hasNext()) {
+        writer.writeValue(gen, it.next());
+        gen.writeRaw('\n');
+      }
+    }
+  }
+
+  private ResponseEntity<List<?>> toResponse(UserNotePageDTO page, String view, String etag) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (etag != null)
+      builder.eTag(etag).cacheControl(REVALIDATE);
+    if (page.next() != null)
+      builder.header(Constants.NEXT_CURSOR_HEADER, page.next());
+
+    // Service has already rejected unknown view, summary notes have preview as note text
+    List<?> body = NoteView.of(view) == NoteView.SUMMARY ? UserNoteSummaryDTO.of(page.notes())
+        : page.notes();
+    return builder.body(body);
   }
 }
@@ -2,12 +2,18 @@ package com.example.notes.api;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import com.example.notes.config.BadRequestException;
+import com.example.notes.config.PreconditionFailedException;
+import com.example.notes.config.SyncExpiredException;
 import com.example.notes.config.UserNotesException;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.security.PasswordHashingRejectedException;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 
 @ControllerAdvice
@@ -30,6 +36,67 @@ public class UserNotesExceptionHandler {
     return ResponseEntity.internalServerError().body(ex.getSource() + " Error");
   }
 
+  /**
+   * BadRequestException handler
+   * 
+   * @param ex BadRequestException Exception
+   * @return ResponseEntity
+   */
+  @ExceptionHandler(BadRequestException.class)
+  private ResponseEntity<String> handleBadRequest(BadRequestException ex) {
+    LOG.debug(ex.toString());
+    return ResponseEntity.badRequest().body(ex.getMessage());
+  }
+
+  /**
+   * PreconditionFailedException handler
+   * 
+   * @param ex PreconditionFailedException Exception
+   */
+  @ExceptionHandler(PreconditionFailedException.class)
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  private void handlePreconditionFailed(PreconditionFailedException ex) {
+    LOG.debug(ex.toString());
+  }
+
+  /**
+   * SyncExpiredException handler
+   * 
+   * @param ex SyncExpiredException Exception
+   */
+  @ExceptionHandler(SyncExpiredException.class)
+  @ResponseStatus(HttpStatus.GONE)
+  private void handleSyncExpired(SyncExpiredException ex) {
+    LOG.debug(ex.toString());
+  }
+
+  /**
+   * PasswordHashingRejectedException handler
+   * 
+   * @param ex PasswordHashingRejectedException Exception
+   * @return ResponseEntity
+   */
+  @ExceptionHandler(PasswordHashingRejectedException.class)
+  private ResponseEntity<Void> handlePasswordHashingRejected(PasswordHashingRejectedException ex) {
+    LOG.error(ex.toString());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1").build();
+  }
+
+  /**
+   * RateLimitExceededException handler
+   * 
+   * @param ex RateLimitExceededException Exception
+   * @return ResponseEntity
+   */
+  @ExceptionHandler(RateLimitExceededException.class)
+  private ResponseEntity<Void> handleRateLimitExceeded(RateLimitExceededException ex) {
+    // Just log for now
+    LOG.error(ex.toString());
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, ex.getRetryAfterSeconds()).build();
+  }
+
   /**
    * RequestNotPermitted handler
    * 
@@ -0,0 +1,14 @@
+package com.example.notes.config;
+
+/**
+ * Thrown when client sends invalid request parameter like malformed cursor or sync token
+ */
+public class BadRequestException extends UserNotesException {
+
+  // Default Serial Version UID
+  private static final long serialVersionUID = 1L;
+
+  public BadRequestException(String src, String message) {
+    super(src, message);
+  }
+}
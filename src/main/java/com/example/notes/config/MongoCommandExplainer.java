@@ -0,0 +1,154 @@
+package com.example.notes.config;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.mongodb.client.MongoClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs explain with execution stats for slow commands in background and logs the winning plan.
+ * Explain runs on a single thread with short queue, commands that don't fit are not explained, so
+ * a burst of slow commands doesn't add a burst of explains to already slow database. Explain of
+ * write commands doesn't modify any documents.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class MongoCommandExplainer {
+
+  private static Logger LOG = LoggerFactory.getLogger(MongoCommandExplainer.class);
+
+  // Command fields added by driver that explain doesn't accept
+  private static final List<String> DRIVER_FIELDS = List.of("$db", "lsid", "$clusterTime",
+      "txnNumber", "autocommit", "startTransaction", "$readPreference", "readConcern",
+      "writeConcern", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+  // Client is built with command listener, so it's resolved only when explain runs
+  @Autowired
+  private ObjectProvider<MongoClient> client;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(16), r -> {
+        Thread t = new Thread(r, "mongo-explain");
+        t.setDaemon(true);
+        return t;
+      }, new ThreadPoolExecutor.DiscardPolicy());
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Explain command in background and store the result in command stats
+   * 
+   * @param database Database name
+   * @param command Copy of the command document
+   * @param stats Stats of the command shape
+   */
+  public void explain(String database, BsonDocument command, SlowMongoCommand stats) {
+    executor.execute(() -> {
+      try {
+        DRIVER_FIELDS.forEach(command::remove);
+        BsonDocument result = client.getObject().getDatabase(database)
+            .runCommand(new BsonDocument("explain", command).append("verbosity",
+                new BsonString("executionStats")), BsonDocument.class);
+
+        SlowMongoCommand.Explain explain = parse(result);
+        stats.setExplain(explain);
+        if (explain.docsExamined() >= 0)
+          DistributionSummary.builder("notes.mongo.documents.examined").baseUnit("documents")
+              .tag("command", stats.getCommand()).tag("collection", stats.getCollection())
+              .register(registry).record(explain.docsExamined());
+        LOG.warn(
+            "Slow MongoDB command explained: command={} collection={} plan=\"{}\" returned={} "
+                + "docsExamined={} keysExamined={} executionMs={} shape={}",
+            stats.getCommand(), stats.getCollection(), explain.plan(), explain.returned(),
+            explain.docsExamined(), explain.keysExamined(), explain.executionMs(),
+            stats.getShape());
+      } catch (Exception e) {
+        LOG.warn("Can't explain MongoDB command: command={} collection={} error=\"{}\"",
+            stats.getCommand(), stats.getCollection(), e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Read plan and stats from explain output. Find and aggregate explains have different layouts
+   * and newer servers put classic plan under "queryPlan", so both are searched for by name.
+   * 
+   * @param result Explain output
+   * @return plan and stats
+   */
+  static SlowMongoCommand.Explain parse(BsonDocument result) {
+    BsonDocument stats = find(result, "executionStats");
+    BsonDocument winning = find(result, "winningPlan");
+    if (winning != null && winning.isDocument("queryPlan"))
+      winning = winning.getDocument("queryPlan");
+
+    return new SlowMongoCommand.Explain(winning == null ? "unknown" : plan(winning),
+        number(stats, "nReturned"), number(stats, "totalDocsExamined"),
+        number(stats, "totalKeysExamined"), number(stats, "executionTimeMillis"), Instant.now());
+  }
+
+  private static String plan(BsonDocument stage) {
+    StringBuilder sb = new StringBuilder(stage.getString("stage", new BsonString("?")).getValue());
+    if (stage.isString("indexName"))
+      sb.append('(').append(stage.getString("indexName").getValue()).append(')');
+
+    if (stage.isDocument("inputStage")) {
+      sb.append(" <- ").append(plan(stage.getDocument("inputStage")));
+    } else if (stage.isArray("inputStages")) {
+      sb.append(" <- [").append(stage.getArray("inputStages").stream()
+          .filter(BsonValue::isDocument).map(s -> plan(s.asDocument()))
+          .collect(Collectors.joining(", "))).append(']');
+    }
+
+    return sb.toString();
+  }
+
+  private static BsonDocument find(BsonValue value, String key) {
+    if (value.isDocument()) {
+      BsonDocument doc = value.asDocument();
+      if (doc.isDocument(key))
+        return doc.getDocument(key);
+
+      for (BsonValue child : doc.values()) {
+        BsonDocument found = find(child, key);
+        if (found != null)
+          return found;
+      }
+    } else if (value.isArray()) {
+      for (BsonValue child : (BsonArray) value) {
+        BsonDocument found = find(child, key);
+        if (found != null)
+          return found;
+      }
+    }
+
+    return null;
+  }
+
+  private static long number(BsonDocument doc, String key) {
+    return doc != null && doc.isNumber(key) ? doc.getNumber(key).longValue() : -1;
+  }
+}
@@ -0,0 +1,271 @@
+package com.example.notes.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.stereotype.Component;
+import com.example.notes.timing.RequestTiming;
+import com.example.notes.timing.RequestTiming.Stage;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * MongoDB driver command and connection pool listener. Command latency by command and collection
+ * is already recorded by actuator as "mongodb.driver.commands", this listener adds number of
+ * returned documents, connection checkout wait, request's MongoDB stage time and slow command
+ * shapes. Slow commands are logged and explained by {@link MongoCommandExplainer}, their summary
+ * is available from {@link SlowMongoCommandsEndpoint}. Registered with sync client and in reactive
+ * mode with reactive client too.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class MongoCommandMonitor
+    implements CommandListener, ConnectionPoolListener, MongoClientSettingsBuilderCustomizer {
+
+  private static Logger LOG = LoggerFactory.getLogger(MongoCommandMonitor.class);
+
+  // Commands that explain accepts
+  private static final Set<String> EXPLAINABLE =
+      Set.of("find", "aggregate", "count", "distinct", "findAndModify", "update", "delete");
+
+  // Command fields that are never part of the shape
+  private static final Set<String> IGNORED = Set.of("$db", "lsid", "$clusterTime", "txnNumber",
+      "$readPreference", "readConcern", "writeConcern", "apiVersion", "apiStrict",
+      "apiDeprecationErrors");
+
+  // Write commands with statements in document sequence by command name
+  private static final Map<String, String> STATEMENTS =
+      Map.of("update", "updates", "delete", "deletes");
+
+  private static final BsonString ANY = new BsonString("?");
+  private static final String OTHER = "none";
+
+  /**
+   * Command in flight. Command document is only valid during started event, so it's copied and
+   * only when it may be explained. See {@link #copy}.
+   */
+  private record Running(String collection, BsonDocument command) {
+  }
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Autowired
+  private MongoCommandExplainer explainer;
+
+  // Commands in flight by request id, unique for the client
+  private final Map<Integer, Running> running = new ConcurrentHashMap<>();
+
+  // Slow command stats by shape
+  private final Map<String, SlowMongoCommand> slow = new ConcurrentHashMap<>();
+
+  // Returned documents summaries by command and collection, registered on first use
+  private final Map<String, Map<String, DistributionSummary>> returned =
+      new ConcurrentHashMap<>();
+
+  // Checkout timers by result, registered on first use
+  private final Map<String, Timer> checkouts = new ConcurrentHashMap<>();
+
+  @Override
+  public void customize(MongoClientSettings.Builder builder) {
+    builder.addCommandListener(this)
+        .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(this));
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    BsonDocument command = event.getCommand();
+    running.put(event.getRequestId(), new Running(collection(event.getCommandName(), command),
+        EXPLAINABLE.contains(event.getCommandName()) ? copy(event.getCommandName(), command)
+            : null));
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    // Sync driver notifies on the request thread
+    RequestTiming.record(Stage.MONGO, event.getElapsedTime(TimeUnit.NANOSECONDS));
+
+    Running cmd = running.remove(event.getRequestId());
+    if (cmd == null)
+      return;
+
+    int documents = returned(event.getResponse());
+    if (documents >= 0)
+      returned.computeIfAbsent(event.getCommandName(), c -> new ConcurrentHashMap<>())
+          .computeIfAbsent(cmd.collection(), c -> DistributionSummary
+              .builder("notes.mongo.documents.returned").baseUnit("documents")
+              .tag("command", event.getCommandName()).tag("collection", c)
+              .publishPercentileHistogram().register(registry))
+          .record(documents);
+
+    completed(event, cmd, event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    RequestTiming.record(Stage.MONGO, event.getElapsedTime(TimeUnit.NANOSECONDS));
+
+    Running cmd = running.remove(event.getRequestId());
+    if (cmd != null)
+      completed(event, cmd, event.getElapsedTime(TimeUnit.NANOSECONDS), "failed");
+  }
+
+  @Override
+  public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+    checkout("success").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+    checkout(event.getReason().name().toLowerCase(Locale.ROOT))
+        .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Get slow command shapes ordered by total time
+   * 
+   * @return slow commands
+   */
+  public List<SlowMongoCommand> getSlowCommands() {
+    List<SlowMongoCommand> result = new ArrayList<>(slow.values());
+    result.sort(Comparator.comparingDouble(SlowMongoCommand::getTotalMs).reversed());
+    return result;
+  }
+
+  /**
+   * Forget all slow command shapes
+   */
+  public void resetSlowCommands() {
+    slow.clear();
+  }
+
+  private void completed(CommandEvent event, Running cmd, long nanos, String status) {
+    NotesProperties.Mongo config = props.getMongo();
+    if (nanos < config.getSlowThreshold().toNanos() || event.getCommandName().equals("explain"))
+      return;
+
+    String shape = shape(event.getCommandName(), cmd);
+    SlowMongoCommand stats = slow.get(shape);
+    if (stats == null && slow.size() < config.getMaxShapes())
+      stats = slow.computeIfAbsent(shape,
+          s -> new SlowMongoCommand(s, event.getCommandName(), cmd.collection()));
+
+    registry.counter("notes.mongo.slow.commands", "command", event.getCommandName(), "collection",
+        cmd.collection()).increment();
+    LOG.warn("Slow MongoDB command: command={} collection={} status={} durationMs={} shape={}",
+        event.getCommandName(), cmd.collection(), status, nanos / 1_000_000, shape);
+
+    if (stats == null)
+      return;
+
+    stats.record(nanos);
+    if (config.isExplain() && cmd.command() != null
+        && stats.explainDue(System.nanoTime(), config.getExplainInterval().toNanos()))
+      explainer.explain(event.getDatabaseName(), cmd.command(), stats);
+  }
+
+  private Timer checkout(String result) {
+    return checkouts.computeIfAbsent(result, r -> Timer.builder("notes.mongo.pool.checkout")
+        .tag("result", r).publishPercentileHistogram().register(registry));
+  }
+
+  /**
+   * Command name, collection and command document with every value replaced by "?"
+   */
+  private static String shape(String name, Running cmd) {
+    if (cmd.command() == null)
+      return name + " " + cmd.collection();
+
+    BsonDocument shape = new BsonDocument();
+    cmd.command().forEach((k, v) -> {
+      if (!k.equals(name) && !IGNORED.contains(k))
+        shape.put(k, shape(v));
+    });
+    return name + " " + cmd.collection() + " " + shape.toJson();
+  }
+
+  private static BsonValue shape(BsonValue value) {
+    if (value.isDocument()) {
+      BsonDocument result = new BsonDocument();
+      value.asDocument().forEach((k, v) -> result.put(k, shape(v)));
+      return result;
+    }
+
+    // Arrays of values like $in have the same shape regardless of size, arrays of documents like
+    // $or or pipeline keep each distinct shape
+    if (value.isArray()) {
+      BsonArray result = new BsonArray();
+      for (BsonValue v : value.asArray()) {
+        BsonValue s = shape(v);
+        if (!result.contains(s))
+          result.add(s);
+      }
+      return result;
+    }
+
+    return ANY;
+  }
+
+  /**
+   * Copy command for shape and explain. Command read from driver buffer is copied as raw bytes
+   * without decoding. Write batch is decoded by driver and its statements would be copied one by
+   * one, so only the first is kept, explain accepts single statement anyway.
+   */
+  private static BsonDocument copy(String name, BsonDocument command) {
+    String statements = STATEMENTS.get(name);
+    if (statements == null || !command.isArray(statements)
+        || command.getArray(statements).size() <= 1)
+      return command.clone();
+
+    BsonDocument first = new BsonDocument();
+    command.forEach((k, v) -> first.put(k,
+        k.equals(statements) ? new BsonArray(List.of(v.asArray().get(0))) : v));
+    return first.clone();
+  }
+
+  private static String collection(String name, BsonDocument command) {
+    BsonValue value = command.get(name.equals("getMore") ? "collection" : name);
+    return value != null && value.isString() ? value.asString().getValue() : OTHER;
+  }
+
+  /**
+   * Number of documents in reply batch or -1 for reply without cursor
+   */
+  private static int returned(BsonDocument response) {
+    if (response.isDocument("cursor")) {
+      BsonDocument cursor = response.getDocument("cursor");
+      BsonValue batch = cursor.containsKey("firstBatch") ? cursor.get("firstBatch")
+          : cursor.get("nextBatch");
+      return batch != null && batch.isArray() ? batch.asArray().size() : -1;
+    }
+
+    return -1;
+  }
+}
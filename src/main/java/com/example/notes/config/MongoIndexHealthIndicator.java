@@ -0,0 +1,35 @@
+package com.example.notes.config;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports state of the required MongoDB indexes. It's included into readiness group, so node
+ * doesn't receive traffic until all indexes exist and queries don't fall back to collection scan.
+ * While older text index is accepted, notes are stored uncompressed and it's shown in details.
+ */
+@Component
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+  @Autowired
+  private MongoIndexManager indexManager;
+
+  @Override
+  public Health health() {
+    Map<String, List<String>> missing = indexManager.findMissing();
+    if (missing.isEmpty()) {
+      Health.Builder health = Health.up().withDetail("indexes", indexManager.getRequired());
+      if (!indexManager.isSearchTextIndexed())
+        health.withDetail("compression", "disabled until " + MongoIndexManager.SEARCH_TEXT_INDEX
+            + " replaces older text index");
+
+      return health.build();
+    }
+
+    return Health.down().withDetail("missing", missing).build();
+  }
+}
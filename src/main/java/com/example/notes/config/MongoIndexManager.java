@@ -0,0 +1,187 @@
+package com.example.notes.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition.TextIndexDefinitionBuilder;
+import org.springframework.stereotype.Component;
+import com.example.notes.model.NoteTombstone;
+import com.example.notes.model.User;
+import com.example.notes.model.UserNote;
+
+/**
+ * Declares MongoDB indexes required by repository queries and creates them at startup. Index
+ * creation is idempotent so it's safe to run on every start and on every node. Missing indexes are
+ * reported by {@link MongoIndexHealthIndicator} instead of failing the startup. Index that replaces
+ * an older one is only created when application runs with "--replace-indexes", until then the
+ * older index is accepted, so nodes of the previous version stay ready during rolling deploy.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class MongoIndexManager implements ApplicationRunner {
+
+  private static Logger LOG = LoggerFactory.getLogger(MongoIndexManager.class);
+
+  // Text index of plain and compressed notes
+  public static final String SEARCH_TEXT_INDEX = "note_search_text";
+
+  // Interval between checks whether another node has replaced the older text index
+  private static final long RECHECK_MILLIS = 60_000;
+
+  // Required indexes for each collection. Every index must have a name to check its state
+  private static final Map<Class<?>, List<IndexDefinition>> INDEXES = Map.of(UserNote.class,
+      List.of(
+          // Owner's and shared notes sorted by id, used by find by id and list pages
+          new Index().on("owner", Direction.ASC).on("_id", Direction.ASC).named("owner_id"),
+          new Index().on("users", Direction.ASC).on("_id", Direction.ASC).named("users_id"),
+
+          // Owner's and shared notes sorted by update time
+          new Index().on("owner", Direction.ASC).on("updated", Direction.ASC)
+              .on("_id", Direction.ASC).named("owner_updated"),
+          new Index().on("users", Direction.ASC).on("updated", Direction.ASC)
+              .on("_id", Direction.ASC).named("users_updated"),
+
+          // Text search of plain and compressed notes
+          new TextIndexDefinitionBuilder().onField("note").onField("searchText")
+              .named(SEARCH_TEXT_INDEX).build()),
+      User.class, List.of(
+          // Login lookup and guard against duplicate signup
+          new Index().on("name", Direction.ASC).unique().named("name_unique")),
+      NoteTombstone.class, List.of(
+          // Deleted notes of the user for delta sync
+          new Index().on("user", Direction.ASC).on("deleted", Direction.ASC).named("user_deleted"),
+
+          // Each tombstone expires at its own time, so retention change applies to new ones
+          new Index().on("expireAt", Direction.ASC).expire(0).named("expire_ttl")));
+
+  // Older index by required index that replaces it. Collection can have only one text index, so
+  // the older one must be dropped before the new one is created
+  private static final Map<String, String> REPLACED = Map.of(SEARCH_TEXT_INDEX, "note_text");
+
+  // Run option that drops older indexes and creates the ones that replace them
+  public static final String REPLACE_OPTION = "replace-indexes";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  // Whether text index of compressed notes exists, checked again after interval until it does
+  private volatile boolean searchTextIndexed;
+
+  private volatile long searchTextChecked;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    ensureIndexes(args.containsOption(REPLACE_OPTION));
+  }
+
+  /**
+   * Create required indexes. Index that replaces an older one is skipped while the older one
+   * exists, unless replace is requested.
+   * 
+   * @param replace Whether older indexes are dropped and replaced
+   */
+  public void ensureIndexes(boolean replace) {
+    INDEXES.forEach((entity, indexes) -> {
+      IndexOperations ops = mongoTemplate.indexOps(entity);
+      for (IndexDefinition index : indexes) {
+        String older = REPLACED.get(name(index));
+        try {
+          if (older != null && existing(ops).contains(older)) {
+            if (!replace) {
+              LOG.warn("Index [{}] for {} is served by [{}] until run with --{}", name(index),
+                  entity.getSimpleName(), older, REPLACE_OPTION);
+              continue;
+            }
+
+            ops.dropIndex(older);
+            LOG.info("Dropped index [{}] for {}", older, entity.getSimpleName());
+          }
+
+          ops.ensureIndex(index);
+          LOG.info("Ensured index [{}] for {}", name(index), entity.getSimpleName());
+        } catch (Exception e) {
+          LOG.error("Error create index [{}] for {}", name(index), entity.getSimpleName(), e);
+        }
+      }
+    });
+    checkSearchText();
+  }
+
+  /**
+   * Check whether text index of plain and compressed notes exists. Older text index only has plain
+   * notes, so notes are not compressed until it's replaced. Index is looked up again at most once
+   * per minute while it doesn't exist, since it can be replaced by another node.
+   * 
+   * @return true when compressed notes are found by text search
+   */
+  public boolean isSearchTextIndexed() {
+    if (!searchTextIndexed && System.currentTimeMillis() - searchTextChecked >= RECHECK_MILLIS)
+      checkSearchText();
+
+    return searchTextIndexed;
+  }
+
+  private void checkSearchText() {
+    searchTextChecked = System.currentTimeMillis();
+    try {
+      searchTextIndexed =
+          existing(mongoTemplate.indexOps(UserNote.class)).contains(SEARCH_TEXT_INDEX);
+      if (!searchTextIndexed)
+        LOG.warn("Notes are not compressed until index [{}] exists", SEARCH_TEXT_INDEX);
+    } catch (Exception e) {
+      LOG.error("Error check index [{}]", SEARCH_TEXT_INDEX, e);
+    }
+  }
+
+  /**
+   * Find required indexes that don't exist in database. Index is not missing while the older index
+   * it replaces exists.
+   * 
+   * @return Map with collection name and list of missing index names
+   */
+  public Map<String, List<String>> findMissing() {
+    return INDEXES.entrySet().stream().map(entry -> {
+      Set<String> existing = existing(mongoTemplate.indexOps(entry.getKey()));
+      List<String> missing = new ArrayList<>();
+      for (IndexDefinition index : entry.getValue())
+        if (!existing.contains(name(index)) && !existing.contains(REPLACED.get(name(index))))
+          missing.add(name(index));
+
+      return Map.entry(mongoTemplate.getCollectionName(entry.getKey()), missing);
+    }).filter(entry -> !entry.getValue().isEmpty())
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  /**
+   * Get names of all required indexes
+   * 
+   * @return Map with collection name and list of required index names
+   */
+  public Map<String, List<String>> getRequired() {
+    return INDEXES.entrySet().stream()
+        .collect(Collectors.toMap(entry -> mongoTemplate.getCollectionName(entry.getKey()),
+            entry -> entry.getValue().stream().map(MongoIndexManager::name).toList()));
+  }
+
+  private static Set<String> existing(IndexOperations ops) {
+    return ops.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+  }
+
+  private static String name(IndexDefinition index) {
+    return index.getIndexOptions().getString("name");
+  }
+}
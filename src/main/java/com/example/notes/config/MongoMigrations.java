@@ -0,0 +1,56 @@
+package com.example.notes.config;
+
+import java.util.List;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import com.example.notes.model.UserNote;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+
+/**
+ * Data migrations that run at startup before the node is ready. Every migration only touches
+ * documents that weren't migrated yet, so it's safe to run on every start and on every node.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoMigrations implements ApplicationRunner {
+
+  private static Logger LOG = LoggerFactory.getLogger(MongoMigrations.class);
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      long count = backfillUpdated();
+      if (count > 0)
+        LOG.info("Set update time of {} notes", count);
+    } catch (Exception e) {
+      LOG.error("Error set update time of notes", e);
+    }
+  }
+
+  /**
+   * Set update time of notes written before it was stored to their creation time from ObjectId.
+   * Sync and pages sorted by update time skip notes without it.
+   * 
+   * @return number of updated notes
+   */
+  public long backfillUpdated() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(UserNote.class))
+        .updateMany(Filters.exists("updated", false),
+            List.of(Updates.set("updated", new Document("$toDate", "$_id"))))
+        .getModifiedCount();
+  }
+}
@@ -0,0 +1,603 @@
+package com.example.notes.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Application specific configuration properties with "notes" prefix
+ */
+@ConfigurationProperties(prefix = "notes")
+public class NotesProperties {
+
+  private final Page page = new Page();
+
+  private final Search search = new Search();
+
+  private final Cache cache = new Cache();
+
+  private final UserCache userCache = new UserCache();
+
+  private final Password password = new Password();
+
+  private final RateLimit rateLimit = new RateLimit();
+
+  private final Bulk bulk = new Bulk();
+
+  private final Sync sync = new Sync();
+
+  private final Stream stream = new Stream();
+
+  private final Mongo mongo = new Mongo();
+
+  private final Timing timing = new Timing();
+
+  private final Compression compression = new Compression();
+
+  public Page getPage() {
+    return page;
+  }
+
+  public Search getSearch() {
+    return search;
+  }
+
+  public Cache getCache() {
+    return cache;
+  }
+
+  public UserCache getUserCache() {
+    return userCache;
+  }
+
+  public Password getPassword() {
+    return password;
+  }
+
+  public RateLimit getRateLimit() {
+    return rateLimit;
+  }
+
+  public Bulk getBulk() {
+    return bulk;
+  }
+
+  public Sync getSync() {
+    return sync;
+  }
+
+  public Stream getStream() {
+    return stream;
+  }
+
+  public Mongo getMongo() {
+    return mongo;
+  }
+
+  public Timing getTiming() {
+    return timing;
+  }
+
+  public Compression getCompression() {
+    return compression;
+  }
+
+  /**
+   * Pagination settings for list and search API
+   */
+  public static class Page {
+
+    // Number of notes returned when request doesn't specify the limit
+    private int defaultLimit = 100;
+
+    // Upper bound for the limit requested by client
+    private int maxLimit = 1000;
+
+    public int getDefaultLimit() {
+      return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+      this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxLimit() {
+      return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+    }
+  }
+
+  /**
+   * Search settings
+   */
+  public static class Search {
+
+    /**
+     * Search mode
+     */
+    public enum Mode {
+      // Word search ranked by relevance using text index
+      TEXT,
+
+      // Substring search that scans all notes user has access to
+      REGEX
+    }
+
+    private Mode mode = Mode.TEXT;
+
+    // Language for stemming when request doesn't specify one. Null to use text index default
+    private String language;
+
+    // Max number of ranked results client can page through
+    private int maxResults = 1000;
+
+    public Mode getMode() {
+      return mode;
+    }
+
+    public void setMode(Mode mode) {
+      this.mode = mode;
+    }
+
+    public String getLanguage() {
+      return language;
+    }
+
+    public void setLanguage(String language) {
+      this.language = language;
+    }
+
+    public int getMaxResults() {
+      return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+      this.maxResults = maxResults;
+    }
+  }
+
+  /**
+   * In-process cache for notes and per-user note lists
+   */
+  public static class Cache {
+
+    private boolean enabled = true;
+
+    // Max number of cached notes
+    private long maxNotes = 10000;
+
+    // Max number of users with cached note lists
+    private long maxUsers = 1000;
+
+    // Time to live for cached entries. Also limits how long other nodes can serve stale data
+    private Duration ttl = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getMaxNotes() {
+      return maxNotes;
+    }
+
+    public void setMaxNotes(long maxNotes) {
+      this.maxNotes = maxNotes;
+    }
+
+    public long getMaxUsers() {
+      return maxUsers;
+    }
+
+    public void setMaxUsers(long maxUsers) {
+      this.maxUsers = maxUsers;
+    }
+
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+    }
+  }
+
+  /**
+   * Cache for user lookup during login
+   */
+  public static class UserCache {
+
+    private boolean enabled = true;
+
+    // Max number of cached user names, both existing and unknown
+    private long maxSize = 10000;
+
+    // Time to live for existing users
+    private Duration ttl = Duration.ofMinutes(5);
+
+    // Time to live for unknown user names
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getMaxSize() {
+      return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+    }
+
+    public Duration getNegativeTtl() {
+      return negativeTtl;
+    }
+
+    public void setNegativeTtl(Duration negativeTtl) {
+      this.negativeTtl = negativeTtl;
+    }
+  }
+
+  /**
+   * Password hashing settings
+   */
+  public static class Password {
+
+    // Algorithm for new hashes, either "bcrypt" or "pbkdf2". Existing hashes are upgraded on login
+    private String algorithm = "bcrypt";
+
+    // BCrypt cost, each increment doubles CPU time per hash
+    private int bcryptStrength = 10;
+
+    // Number of threads hashing passwords. Zero to use number of CPU cores
+    private int poolSize = 0;
+
+    // Max number of hashing requests waiting for a thread before rejected
+    private int queueCapacity = 64;
+
+    public String getAlgorithm() {
+      return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+      this.algorithm = algorithm;
+    }
+
+    public int getBcryptStrength() {
+      return bcryptStrength;
+    }
+
+    public void setBcryptStrength(int bcryptStrength) {
+      this.bcryptStrength = bcryptStrength;
+    }
+
+    public int getPoolSize() {
+      return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+      this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+  }
+
+  /**
+   * Keyed rate limiter settings. Limits are configured with resilience4j rate limiter instances
+   */
+  public static class RateLimit {
+
+    // Max number of keys tracked by each rate limiter
+    private long maxKeys = 100000;
+
+    // Time after which idle key is evicted
+    private Duration idleEviction = Duration.ofMinutes(1);
+
+    public long getMaxKeys() {
+      return maxKeys;
+    }
+
+    public void setMaxKeys(long maxKeys) {
+      this.maxKeys = maxKeys;
+    }
+
+    public Duration getIdleEviction() {
+      return idleEviction;
+    }
+
+    public void setIdleEviction(Duration idleEviction) {
+      this.idleEviction = idleEviction;
+    }
+  }
+
+  /**
+   * Bulk API settings
+   */
+  public static class Bulk {
+
+    // Max number of operations in single request
+    private int maxOperations = 500;
+
+    // Number of operations charged as one rate limiter permit
+    private int operationsPerPermit = 10;
+
+    public int getMaxOperations() {
+      return maxOperations;
+    }
+
+    public void setMaxOperations(int maxOperations) {
+      this.maxOperations = maxOperations;
+    }
+
+    public int getOperationsPerPermit() {
+      return operationsPerPermit;
+    }
+
+    public void setOperationsPerPermit(int operationsPerPermit) {
+      this.operationsPerPermit = operationsPerPermit;
+    }
+  }
+
+  /**
+   * Delta sync settings
+   */
+  public static class Sync {
+
+    // How long deleted notes are kept as tombstones. Older sync tokens require full sync
+    private Duration retention = Duration.ofDays(7);
+
+    // Changes newer than this are not returned yet, so writes still in flight are not skipped
+    private Duration lag = Duration.ofSeconds(5);
+
+    public Duration getRetention() {
+      return retention;
+    }
+
+    public void setRetention(Duration retention) {
+      this.retention = retention;
+    }
+
+    public Duration getLag() {
+      return lag;
+    }
+
+    public void setLag(Duration lag) {
+      this.lag = lag;
+    }
+  }
+
+  /**
+   * Server-Sent Events settings
+   */
+  public static class Stream {
+
+    // Max number of events queued for single connection before it's evicted as slow consumer
+    private int bufferSize = 64;
+
+    // Interval of heartbeat comments that keep idle connections open and detect closed ones
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    // Connection is closed after timeout and client reconnects
+    private Duration timeout = Duration.ofMinutes(30);
+
+    // Number of threads writing events to all connections
+    private int senders = 4;
+
+    // Connection whose single write takes longer is evicted, so it doesn't hold a sender thread
+    private Duration sendTimeout = Duration.ofSeconds(5);
+
+    // Max number of open connections for single user
+    private int maxConnectionsPerUser = 5;
+
+    public int getBufferSize() {
+      return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+      this.bufferSize = bufferSize;
+    }
+
+    public Duration getHeartbeat() {
+      return heartbeat;
+    }
+
+    public void setHeartbeat(Duration heartbeat) {
+      this.heartbeat = heartbeat;
+    }
+
+    public Duration getTimeout() {
+      return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+      this.timeout = timeout;
+    }
+
+    public int getSenders() {
+      return senders;
+    }
+
+    public void setSenders(int senders) {
+      this.senders = senders;
+    }
+
+    public Duration getSendTimeout() {
+      return sendTimeout;
+    }
+
+    public void setSendTimeout(Duration sendTimeout) {
+      this.sendTimeout = sendTimeout;
+    }
+
+    public int getMaxConnectionsPerUser() {
+      return maxConnectionsPerUser;
+    }
+
+    public void setMaxConnectionsPerUser(int maxConnectionsPerUser) {
+      this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+  }
+
+  /**
+   * MongoDB command instrumentation settings
+   */
+  public static class Mongo {
+
+    // Commands slower than this are counted by shape and explained
+    private Duration slowThreshold = Duration.ofMillis(100);
+
+    // Explain slow commands with execution stats and log the plan
+    private boolean explain = true;
+
+    // The same command shape is explained at most once per interval
+    private Duration explainInterval = Duration.ofMinutes(1);
+
+    // Max number of slow command shapes kept for actuator endpoint
+    private int maxShapes = 100;
+
+    public Duration getSlowThreshold() {
+      return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+      this.slowThreshold = slowThreshold;
+    }
+
+    public boolean isExplain() {
+      return explain;
+    }
+
+    public void setExplain(boolean explain) {
+      this.explain = explain;
+    }
+
+    public Duration getExplainInterval() {
+      return explainInterval;
+    }
+
+    public void setExplainInterval(Duration explainInterval) {
+      this.explainInterval = explainInterval;
+    }
+
+    public int getMaxShapes() {
+      return maxShapes;
+    }
+
+    public void setMaxShapes(int maxShapes) {
+      this.maxShapes = maxShapes;
+    }
+  }
+
+  /**
+   * Request stage timing settings
+   */
+  public static class Timing {
+
+    private boolean enabled = true;
+
+    // Fraction of requests that are timed, from 0 to 1
+    private double sampleRate = 0.1;
+
+    // Send coarse stage timings in Server-Timing header of sampled requests, metrics are recorded
+    // either way
+    private boolean header = true;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+      return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+      this.sampleRate = sampleRate;
+    }
+
+    public boolean isHeader() {
+      return header;
+    }
+
+    public void setHeader(boolean header) {
+      this.header = header;
+    }
+  }
+
+  /**
+   * Compression settings for large note text stored in database
+   */
+  public static class Compression {
+
+    private boolean enabled = true;
+
+    // Notes with UTF-8 size from threshold are compressed
+    private DataSize threshold = DataSize.ofKilobytes(16);
+
+    // Deflate level from 1 (fastest) to 9 (smallest)
+    private int level = 6;
+
+    // Max length of words kept for search of compressed notes, 0 for no limit
+    private int maxSearchText = 0;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public DataSize getThreshold() {
+      return threshold;
+    }
+
+    public void setThreshold(DataSize threshold) {
+      this.threshold = threshold;
+    }
+
+    public int getLevel() {
+      return level;
+    }
+
+    public void setLevel(int level) {
+      this.level = level;
+    }
+
+    public int getMaxSearchText() {
+      return maxSearchText;
+    }
+
+    public void setMaxSearchText(int maxSearchText) {
+      this.maxSearchText = maxSearchText;
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.example.notes.config;
+
+/**
+ * Thrown when note doesn't have version expected by If-Match
+ */
+public class PreconditionFailedException extends UserNotesException {
+
+  // Default Serial Version UID
+  private static final long serialVersionUID = 1L;
+
+  public PreconditionFailedException(String src, String message) {
+    super(src, message);
+  }
+}
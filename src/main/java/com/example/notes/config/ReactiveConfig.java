@@ -0,0 +1,27 @@
+package com.example.notes.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+import com.example.notes.repo.ReactiveUserNoteRepo;
+
+/**
+ * Reactive (WebFlux) serving mode, enabled with "reactive" Spring profile. Tomcat stays on the
+ * classpath for servlet mode and would be picked first, so reactive mode runs on Netty explicitly.
+ * Reactive MongoDB auto-configuration is excluded in servlet mode, so reactive repositories are
+ * enabled only here.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveUserNoteRepo.class)
+public class ReactiveConfig {
+
+  @Bean
+  NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.notes.config;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Statistics of slow MongoDB commands with the same shape. Shape is command name, collection and
+ * command document with all values replaced by "?", so queries that differ only by user or note
+ * id share the same entry.
+ */
+public class SlowMongoCommand {
+
+  /**
+   * Query plan and execution stats of the last explain
+   * 
+   * @param plan Winning plan stages from root to leaf with index names
+   * @param returned Number of returned documents
+   * @param docsExamined Number of examined documents
+   * @param keysExamined Number of examined index keys
+   * @param executionMs Execution time reported by explain
+   * @param explained Time of explain
+   */
+  public record Explain(String plan, long returned, long docsExamined, long keysExamined,
+      long executionMs, Instant explained) {
+  }
+
+  private final String shape;
+
+  private final String command;
+
+  private final String collection;
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong totalNanos = new AtomicLong();
+
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  // Time of the last explain in nanos, so shape isn't explained more than once per interval
+  private final AtomicLong explainedAt = new AtomicLong(Long.MIN_VALUE);
+
+  private volatile Instant lastSeen;
+
+  private volatile Explain explain;
+
+  public SlowMongoCommand(String shape, String command, String collection) {
+    this.shape = shape;
+    this.command = command;
+    this.collection = collection;
+  }
+
+  void record(long nanos) {
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    maxNanos.accumulate(nanos);
+    lastSeen = Instant.now();
+  }
+
+  /**
+   * Check and take explain slot, only one caller per interval gets true
+   */
+  boolean explainDue(long now, long intervalNanos) {
+    long last = explainedAt.get();
+    return (last == Long.MIN_VALUE || now - last >= intervalNanos)
+        && explainedAt.compareAndSet(last, now);
+  }
+
+  void setExplain(Explain explain) {
+    this.explain = explain;
+  }
+
+  public String getShape() {
+    return shape;
+  }
+
+  public String getCommand() {
+    return command;
+  }
+
+  public String getCollection() {
+    return collection;
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public double getTotalMs() {
+    return totalNanos.get() / 1e6;
+  }
+
+  public double getMeanMs() {
+    long n = count.get();
+    return n == 0 ? 0 : totalNanos.get() / 1e6 / n;
+  }
+
+  public double getMaxMs() {
+    return maxNanos.get() / 1e6;
+  }
+
+  public Instant getLastSeen() {
+    return lastSeen;
+  }
+
+  public Explain getExplain() {
+    return explain;
+  }
+}
@@ -0,0 +1,30 @@
+package com.example.notes.config;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint with slow MongoDB command shapes ordered by total time, with count, mean and
+ * max latency and the last explained plan. DELETE clears collected shapes.
+ */
+@Component
+@Endpoint(id = "slowcommands")
+public class SlowMongoCommandsEndpoint {
+
+  @Autowired
+  private MongoCommandMonitor monitor;
+
+  @ReadOperation
+  public List<SlowMongoCommand> slowCommands() {
+    return monitor.getSlowCommands();
+  }
+
+  @DeleteOperation
+  public void reset() {
+    monitor.resetSlowCommands();
+  }
+}
@@ -0,0 +1,14 @@
+package com.example.notes.config;
+
+/**
+ * Thrown when sync token is older than tombstone retention, so client must do full sync
+ */
+public class SyncExpiredException extends UserNotesException {
+
+  // Default Serial Version UID
+  private static final long serialVersionUID = 1L;
+
+  public SyncExpiredException(String src, String message) {
+    super(src, message);
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.notes.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Single operation in bulk request. Note id is required for update, delete and share, note text
+ * for create and update and user id for share.
+ */
+public record BulkOperationDTO(@NotNull(message = "Operation type cannot be null") Type type,
+    String id, String note, String userId) {
+
+  /**
+   * Operation type
+   */
+  public enum Type {
+    CREATE, UPDATE, DELETE, SHARE
+  }
+}
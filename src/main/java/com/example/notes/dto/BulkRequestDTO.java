@@ -0,0 +1,12 @@
+package com.example.notes.dto;
+
+import java.util.List;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+/**
+ * Batch of note operations
+ */
+public record BulkRequestDTO(
+    @NotEmpty(message = "Operations cannot be empty") List<@Valid BulkOperationDTO> operations) {
+}
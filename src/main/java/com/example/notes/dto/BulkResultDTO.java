@@ -0,0 +1,9 @@
+package com.example.notes.dto;
+
+/**
+ * Result of single operation in bulk request. Status uses HTTP status codes: 200 when operation
+ * succeeded, 400 for invalid operation, 404 when note doesn't exist or user is not the owner and
+ * 500 when write failed.
+ */
+public record BulkResultDTO(int index, String id, int status, String error) {
+}
@@ -0,0 +1,7 @@
+package com.example.notes.dto;
+
+/**
+ * Note change pushed to connected clients. Only id is sent, so clients fetch note or sync changes.
+ */
+public record NoteEventDTO(String type, String id) {
+}
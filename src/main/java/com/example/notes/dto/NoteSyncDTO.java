@@ -0,0 +1,12 @@
+package com.example.notes.dto;
+
+import java.util.List;
+
+/**
+ * Changes since sync token. Deleted note ids must be applied before changed notes, since note
+ * unshared and then shared again is returned in both lists. More is set when there are more
+ * changes to read right away with returned token.
+ */
+public record NoteSyncDTO(List<UserNoteDTO> notes, List<String> deleted, String token,
+    boolean more) {
+}
@@ -1,10 +1,16 @@
 package com.example.notes.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotNull;
 
 /**
- * UserNoteDTO to use when new note is updated or for search
+ * UserNoteDTO to use when new note is updated or for search. Version is not serialized, it's
+ * returned as ETag header instead.
  */
 public record UserNoteDTO(@NotNull(message = "Note Id cannot be null") String id,
-    @NotNull(message = "Note text cannot be null") String note) {
+    @NotNull(message = "Note text cannot be null") String note, @JsonIgnore Long version) {
+
+  public UserNoteDTO(String id, String note) {
+    this(id, note, null);
+  }
 }
@@ -0,0 +1,9 @@
+package com.example.notes.dto;
+
+import java.util.List;
+
+/**
+ * Single page of notes with cursor for the next page. Cursor is null when there are no more notes.
+ */
+public record UserNotePageDTO(List<UserNoteDTO> notes, String next) {
+}
@@ -0,0 +1,20 @@
+package com.example.notes.dto;
+
+import java.util.List;
+
+/**
+ * Note id with preview of note text returned by list and search in summary view. Preview has at
+ * most {@link com.example.notes.repo.NoteView#PREVIEW_LENGTH} characters.
+ */
+public record UserNoteSummaryDTO(String id, String preview) {
+
+  /**
+   * Convert notes read in summary view, their text is already cut to preview
+   * 
+   * @param notes Notes with preview as note text
+   * @return list of UserNoteSummaryDTO
+   */
+  public static List<UserNoteSummaryDTO> of(List<UserNoteDTO> notes) {
+    return notes.stream().map(dto -> new UserNoteSummaryDTO(dto.id(), dto.note())).toList();
+  }
+}
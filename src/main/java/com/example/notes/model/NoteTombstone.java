@@ -0,0 +1,73 @@
+package com.example.notes.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Marker of the note that was deleted or unshared for the user, so delta sync can report it.
+ * Removed by TTL index after expireAt. Indexes are created by MongoIndexManager
+ */
+@Document
+public class NoteTombstone {
+
+  @Id
+  private String id;
+
+  // Deleted note id
+  private String noteId;
+
+  // User that lost access to the note
+  private String user;
+
+  // Time note was deleted
+  private Instant deleted;
+
+  // Time tombstone is removed
+  private Instant expireAt;
+
+  public NoteTombstone(String noteId, String user, Instant deleted, Instant expireAt) {
+    this.noteId = noteId;
+    this.user = user;
+    this.deleted = deleted;
+    this.expireAt = expireAt;
+  }
+
+  /**
+   * Create tombstones of the note deleted right now for given users
+   * 
+   * @param noteId Deleted note id
+   * @param users Users that lost access to the note
+   * @param retention How long tombstones are kept
+   * @return list of tombstones
+   */
+  public static List<NoteTombstone> of(String noteId, Collection<String> users,
+      Duration retention) {
+    Instant now = Instant.now();
+    return users.stream()
+        .map(user -> new NoteTombstone(noteId, user, now, now.plus(retention))).toList();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getNoteId() {
+    return noteId;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  public Instant getDeleted() {
+    return deleted;
+  }
+
+  public Instant getExpireAt() {
+    return expireAt;
+  }
+}
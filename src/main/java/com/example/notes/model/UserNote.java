@@ -1,11 +1,15 @@
 package com.example.notes.model;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * UserNote Model. Indexes are created by MongoIndexManager
+ */
 @Document
 public class UserNote {
 
@@ -18,20 +22,31 @@ public class UserNote {
   // Shared users
   private Set<String> users;
 
-  // User's note. Indexed field
+  // User's note. Indexed field, stored compressed when it's large
   @TextIndexed
   private String note;
 
+  // Last time note was created or updated
+  private Instant updated;
+
+  // Incremented on every write, used as ETag
+  private long version;
+
   public UserNote(String owner, String note) {
     this.note = note;
     this.owner = owner;
     this.users = new HashSet<>();
+    this.updated = Instant.now();
   }
 
   public String getId() {
     return id;
   }
 
+  public void setId(String id) {
+    this.id = id;
+  }
+
   public String getOwner() {
     return owner;
   }
@@ -51,4 +66,16 @@ public class UserNote {
   public void setNote(String notes) {
     this.note = notes;
   }
+
+  public Instant getUpdated() {
+    return updated;
+  }
+
+  public void setUpdated(Instant updated) {
+    this.updated = updated;
+  }
+
+  public long getVersion() {
+    return version;
+  }
 }
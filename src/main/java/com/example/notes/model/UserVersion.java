@@ -0,0 +1,31 @@
+package com.example.notes.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Version of all notes visible to user. Incremented on every write into any of these notes, so
+ * list of notes can be validated without reading the notes.
+ */
+@Document
+public class UserVersion {
+
+  // User Id
+  @Id
+  private String id;
+
+  private long version;
+
+  public UserVersion(String id, long version) {
+    this.id = id;
+    this.version = version;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.notes.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Locale;
+
+/**
+ * Rate limit calls separately for each key instead of single limiter shared by all callers. Limits
+ * are taken from resilience4j rate limiter instance with the same name.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface KeyedRateLimit {
+
+  /**
+   * Key class used to split calls into separate buckets
+   */
+  enum Key {
+    // Name of the authenticated user
+    PRINCIPAL,
+
+    // User name from the first method argument and client IP address
+    USERNAME_AND_IP;
+
+    private final String metric = name().toLowerCase(Locale.ROOT);
+
+    public String metric() {
+      return metric;
+    }
+  }
+
+  // Name of resilience4j rate limiter instance with limits
+  String name();
+
+  Key key() default Key.PRINCIPAL;
+}
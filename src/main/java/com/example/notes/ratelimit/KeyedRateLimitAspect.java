@@ -0,0 +1,58 @@
+package com.example.notes.ratelimit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Applies {@link KeyedRateLimit} to annotated classes and methods. Method annotation overrides the
+ * class one.
+ */
+@Aspect
+@Component
+public class KeyedRateLimitAspect {
+
+  private static final String ANONYMOUS = "anonymous";
+
+  @Autowired
+  private KeyedRateLimiter limiter;
+
+  @Around("@within(com.example.notes.ratelimit.KeyedRateLimit) || "
+      + "@annotation(com.example.notes.ratelimit.KeyedRateLimit)")
+  public Object limit(ProceedingJoinPoint pjp) throws Throwable {
+    KeyedRateLimit config = AnnotationUtils.findAnnotation(
+        ((MethodSignature) pjp.getSignature()).getMethod(), KeyedRateLimit.class);
+    if (config == null)
+      config = AnnotationUtils.findAnnotation(pjp.getTarget().getClass(), KeyedRateLimit.class);
+
+    limiter.acquirePermission(config.name(), pjp.getSignature().getName(), config.key(),
+        key(config.key(), pjp.getArgs()), 1);
+    return pjp.proceed();
+  }
+
+  private String key(KeyedRateLimit.Key key, Object[] args) {
+    return switch (key) {
+      case PRINCIPAL -> principal();
+      case USERNAME_AND_IP -> (args.length > 0 ? args[0] : ANONYMOUS) + "|" + clientIp();
+    };
+  }
+
+  private String principal() {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    return auth == null ? ANONYMOUS : auth.getName();
+  }
+
+  private String clientIp() {
+    RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+    return attrs instanceof ServletRequestAttributes sra ? sra.getRequest().getRemoteAddr() : "";
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.notes.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.timing.RequestTiming;
+import com.example.notes.timing.RequestTiming.Stage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limiter with separate token bucket for each key. Limits for every bucket are taken from
+ * resilience4j rate limiter instance with the same name. Buckets that were idle longer than
+ * configured time are evicted, so memory is bounded by number of active keys.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class KeyedRateLimiter {
+
+  private static Logger LOG = LoggerFactory.getLogger(KeyedRateLimiter.class);
+
+  @Autowired
+  private RateLimiterRegistry registry;
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  // Buckets by rate limiter name
+  private final Map<String, Cache<String, TokenBucket>> limiters = new ConcurrentHashMap<>();
+
+  /**
+   * Take permits for given key or throw exception when limit is exceeded. Caller never waits for
+   * permits, so configured timeout duration is not used.
+   * 
+   * Weighted calls can't take more permits than limit for period, so the heaviest call takes the
+   * whole bucket.
+   * 
+   * @param name Rate limiter name
+   * @param operation Name of the limited operation, used only as metrics tag
+   * @param keyType Class of the key
+   * @param key Key to split calls
+   * @param permits Number of permits
+   * @throws RateLimitExceededException if permits are not available
+   */
+  public void acquirePermission(String name, String operation, KeyedRateLimit.Key keyType,
+      String key, int permits) {
+    long start = System.nanoTime();
+    RateLimitEvent event = new RateLimitEvent();
+    event.begin();
+    try {
+      acquire(name, operation, keyType, key, permits);
+      event.permitted = true;
+    } catch (RateLimitExceededException e) {
+      event.retryAfter = e.getRetryAfter().toNanos();
+      throw e;
+    } finally {
+      RequestTiming.record(Stage.RATELIMIT, System.nanoTime() - start);
+      if (event.shouldCommit()) {
+        event.limiter = name;
+        event.operation = operation;
+        event.key = keyType.metric();
+        event.permits = permits;
+        event.commit();
+      }
+    }
+  }
+
+  private void acquire(String name, String operation, KeyedRateLimit.Key keyType, String key,
+      int permits) {
+    RateLimiterConfig config = registry.rateLimiter(name).getRateLimiterConfig();
+    TokenBucket bucket = buckets(name, config).get(key,
+        k -> new TokenBucket(config.getLimitForPeriod(), config.getLimitRefreshPeriod().toNanos()));
+
+    long wait = bucket.tryAcquire(Math.min(permits, config.getLimitForPeriod()));
+    if (wait > 0) {
+      meterRegistry.counter("notes.ratelimiter.calls", "name", name, "operation", operation, "key",
+          keyType.metric(), "result", "rejected").increment();
+      LOG.debug("Rate limiter [{}] rejected {} permits of {} for {} key", name, permits, operation,
+          keyType.metric());
+      throw new RateLimitExceededException(name, Duration.ofNanos(wait));
+    }
+
+    meterRegistry.counter("notes.ratelimiter.calls", "name", name, "operation", operation, "key",
+        keyType.metric(), "result", "permitted").increment();
+  }
+
+  private Cache<String, TokenBucket> buckets(String name, RateLimiterConfig config) {
+    return limiters.computeIfAbsent(name, n -> {
+      NotesProperties.RateLimit rl = props.getRateLimit();
+
+      // Bucket that is idle long enough is full again, so evicting it doesn't change the limit
+      Duration idle = config.getLimitRefreshPeriod().multipliedBy(2);
+      if (rl.getIdleEviction().compareTo(idle) > 0)
+        idle = rl.getIdleEviction();
+
+      Cache<String, TokenBucket> cache =
+          Caffeine.newBuilder().maximumSize(rl.getMaxKeys()).expireAfterAccess(idle).build();
+      Gauge.builder("notes.ratelimiter.keys", cache, Cache::estimatedSize).tag("name", name)
+          .register(meterRegistry);
+
+      return cache;
+    });
+  }
+}
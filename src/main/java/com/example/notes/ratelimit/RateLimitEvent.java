@@ -0,0 +1,46 @@
+package com.example.notes.ratelimit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for permits taken or rejected by {@link KeyedRateLimiter}. Key itself is user name or
+ * address, so only its class is recorded. Disabled unless recording uses notes.jfc settings.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Name("com.example.notes.RateLimit")
+@Label("Rate Limit")
+@Category("User Notes")
+@Description("Keyed rate limiter permits acquired or rejected")
+@Enabled(false)
+@StackTrace(false)
+class RateLimitEvent extends Event {
+
+  @Label("Limiter")
+  String limiter;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Key")
+  @Description("Class of the key")
+  String key;
+
+  @Label("Permits")
+  int permits;
+
+  @Label("Permitted")
+  boolean permitted;
+
+  @Label("Retry After")
+  @Description("Time until permits could be available when rejected")
+  @Timespan
+  long retryAfter;
+}
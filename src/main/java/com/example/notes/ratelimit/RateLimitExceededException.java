@@ -0,0 +1,34 @@
+package com.example.notes.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Thrown right away when rate limit is exceeded instead of waiting for permits, so request thread
+ * is released and client is told when to retry
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+  // Default Serial Version UID
+  private static final long serialVersionUID = 1L;
+
+  // Time after which permits could be available
+  private final Duration retryAfter;
+
+  public RateLimitExceededException(String name, Duration retryAfter) {
+    super("RateLimiter '" + name + "' does not permit further calls");
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  /**
+   * Retry-After header value in whole seconds rounded up
+   * 
+   * @return Number of seconds
+   */
+  public String getRetryAfterSeconds() {
+    return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.notes.ratelimit;
+
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive operator for {@link KeyedRateLimiter}. Aspect can't find the principal or client address
+ * of reactive request, so reactive callers pass the key and apply the operator with transform().
+ * Permit is taken on subscription and publisher fails with {@link RateLimitExceededException}
+ * without subscribing to the source, so rejected call never reaches the database.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class ReactiveKeyedRateLimiter {
+
+  @Autowired
+  private KeyedRateLimiter limiter;
+
+  /**
+   * Operator for Mono
+   * 
+   * @param name Rate limiter name
+   * @param operation Name of the limited operation, used only as metrics tag
+   * @param keyType Class of the key
+   * @param key Key to split calls
+   * @return Operator to use with {@link Mono#transform(Function)}
+   */
+  public <T> Function<Mono<T>, Mono<T>> mono(String name, String operation,
+      KeyedRateLimit.Key keyType, String key) {
+    return source -> Mono.defer(() -> {
+      limiter.acquirePermission(name, operation, keyType, key, 1);
+      return source;
+    });
+  }
+
+  /**
+   * Operator for Flux
+   * 
+   * @param name Rate limiter name
+   * @param operation Name of the limited operation, used only as metrics tag
+   * @param keyType Class of the key
+   * @param key Key to split calls
+   * @return Operator to use with {@link Flux#transform(Function)}
+   */
+  public <T> Function<Flux<T>, Flux<T>> flux(String name, String operation,
+      KeyedRateLimit.Key keyType, String key) {
+    return source -> Flux.defer(() -> {
+      limiter.acquirePermission(name, operation, keyType, key, 1);
+      return source;
+    });
+  }
+}
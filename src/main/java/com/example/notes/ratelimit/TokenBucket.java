@@ -0,0 +1,45 @@
+package com.example.notes.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as Generic Cell Rate Algorithm. The whole state is single
+ * theoretical arrival time, so acquire is one CAS on uncontended bucket.
+ */
+class TokenBucket {
+
+  // Time in nanos to refill one permit
+  private final long interval;
+
+  // Time in nanos to refill the whole bucket
+  private final long period;
+
+  // Time when bucket is going to be full again
+  private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+  TokenBucket(int limitForPeriod, long periodNanos) {
+    this.period = periodNanos;
+    // Limit higher than nanos in period would refill instantly and never limit
+    this.interval = Math.max(1, periodNanos / limitForPeriod);
+  }
+
+  /**
+   * Try to take permits from the bucket without waiting
+   * 
+   * @param permits Number of permits
+   * @return Zero if permits are taken or time in nanos after which they could be available
+   */
+  long tryAcquire(int permits) {
+    long now = System.nanoTime();
+    while (true) {
+      long current = tat.get();
+      long next = Math.max(current, now) + interval * permits;
+      long wait = next - period - now;
+      if (wait > 0)
+        return wait;
+
+      if (tat.compareAndSet(current, next))
+        return 0;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.notes.repo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of note text stored in database and search text kept for compressed notes. Text is
+ * compressed with Deflate from UTF-8 bytes without zlib header.
+ */
+public final class NoteCodec {
+
+  // Codec flag stored with compressed note
+  public static final String DEFLATE = "deflate";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private NoteCodec() {}
+
+  /**
+   * Compress UTF-8 bytes of note text
+   * 
+   * @param data UTF-8 bytes
+   * @param level Deflate level from 1 (fastest) to 9 (smallest)
+   * @return compressed bytes
+   */
+  public static byte[] deflate(byte[] data, int level) {
+    Deflater deflater = new Deflater(level, true);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished())
+        out.write(buffer, 0, deflater.deflate(buffer));
+
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Decompress note text
+   * 
+   * @param data Bytes compressed by {@link #deflate(byte[], int)}
+   * @return note text
+   * @throws IllegalArgumentException if data is corrupted
+   */
+  public static String inflate(byte[] data) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(data);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buffer);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+          throw new IllegalArgumentException("Truncated compressed note");
+
+        out.write(buffer, 0, n);
+      }
+
+      return out.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Invalid compressed note", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Words of note text in their order separated by single space. Punctuation and line breaks are
+   * dropped, so text index and regex search of words and phrases still match compressed note when
+   * query is converted the same way.
+   * 
+   * @param note Note text
+   * @return words separated by space
+   */
+  public static String searchText(String note) {
+    StringBuilder sb = new StringBuilder(note.length());
+    int start = -1;
+    for (int i = 0; i <= note.length(); i++) {
+      boolean letter = i < note.length() && Character.isLetterOrDigit(note.charAt(i));
+      if (letter && start < 0) {
+        start = i;
+      } else if (!letter && start >= 0) {
+        if (!sb.isEmpty())
+          sb.append(' ');
+        sb.append(note, start, i);
+        start = -1;
+      }
+    }
+
+    return sb.toString();
+  }
+}
@@ -0,0 +1,136 @@
+package com.example.notes.repo;
+
+import java.nio.charset.StandardCharsets;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import com.example.notes.config.MongoIndexManager;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.model.UserNote;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stores large note text compressed in "noteZ" field with codec flag instead of "note" field.
+ * Words of compressed note are kept in "searchText" field, so text index and regex search still
+ * find it, and its first characters in "preview" field, so summary view doesn't read the whole
+ * note. Note is compressed in saved document and when note text is updated, and
+ * decompressed after document is read, so entity and everything above repository always has plain
+ * text. Notes are stored as is while the older text index without "searchText" is live, so text
+ * search still finds them.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class NoteCompression
+    implements BeforeSaveCallback<UserNote>, AfterConvertCallback<UserNote> {
+
+  static final String NOTE = "note";
+  static final String NOTE_Z = "noteZ";
+  static final String CODEC = "codec";
+  static final String SEARCH_TEXT = "searchText";
+  static final String PREVIEW = "preview";
+
+  /**
+   * Compressed note text with its search text and summary preview
+   */
+  private record Compressed(Binary data, String searchText, String preview) {
+  }
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Autowired
+  private MongoIndexManager indexManager;
+
+  @Override
+  public UserNote onBeforeSave(UserNote entity, Document document, String collection) {
+    Compressed compressed = compress(document.getString(NOTE));
+    if (compressed != null) {
+      document.remove(NOTE);
+      document.put(NOTE_Z, compressed.data());
+      document.put(CODEC, NoteCodec.DEFLATE);
+      document.put(SEARCH_TEXT, compressed.searchText());
+      document.put(PREVIEW, compressed.preview());
+    }
+
+    return entity;
+  }
+
+  @Override
+  public UserNote onAfterConvert(UserNote entity, Document document, String collection) {
+    String codec = document.getString(CODEC);
+    if (codec == null)
+      return entity;
+
+    if (!codec.equals(NoteCodec.DEFLATE))
+      throw new IllegalStateException("Unknown codec: " + codec + " of note: " + entity.getId());
+
+    entity.setNote(NoteCodec.inflate(document.get(NOTE_Z, Binary.class).getData()));
+    return entity;
+  }
+
+  /**
+   * Add note text to update either as is or compressed. Fields of the other form are removed.
+   * 
+   * @param update Update
+   * @param note New note text
+   * @return the same update
+   */
+  public Update update(Update update, String note) {
+    Compressed compressed = compress(note);
+    if (compressed == null)
+      return update.set(NOTE, note).unset(NOTE_Z).unset(CODEC).unset(SEARCH_TEXT).unset(PREVIEW);
+
+    return update.unset(NOTE).set(NOTE_Z, compressed.data()).set(CODEC, NoteCodec.DEFLATE)
+        .set(SEARCH_TEXT, compressed.searchText()).set(PREVIEW, compressed.preview());
+  }
+
+  /**
+   * Compress note when it's over threshold and compression makes it smaller
+   * 
+   * @return compressed note or null when note is stored as is
+   */
+  private Compressed compress(String note) {
+    NotesProperties.Compression config = props.getCompression();
+    long threshold = config.getThreshold().toBytes();
+    // UTF-8 size is at most 3 bytes per char, so short notes are never encoded
+    if (!config.isEnabled() || note == null || note.length() * 3L < threshold)
+      return null;
+
+    byte[] data = note.getBytes(StandardCharsets.UTF_8);
+    if (data.length < threshold || !indexManager.isSearchTextIndexed())
+      return null;
+
+    byte[] compressed = NoteCodec.deflate(data, config.getLevel());
+    if (compressed.length >= data.length)
+      return null;
+
+    DistributionSummary.builder("notes.compression.saved").baseUnit("bytes").register(registry)
+        .record(data.length - compressed.length);
+
+    return new Compressed(new Binary(compressed), searchText(note, config.getMaxSearchText()),
+        NoteView.preview(note));
+  }
+
+  /**
+   * Words of the note for search cut at word boundary when they are over max length. Words after
+   * the cut aren't found, so every cut is counted.
+   */
+  private String searchText(String note, int maxLength) {
+    String result = NoteCodec.searchText(note);
+    if (maxLength <= 0 || result.length() <= maxLength)
+      return result;
+
+    registry.counter("notes.compression.search.truncated").increment();
+    int end = result.lastIndexOf(' ', maxLength);
+    return result.substring(0, end > 0 ? end : maxLength);
+  }
+}
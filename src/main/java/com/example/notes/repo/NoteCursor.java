@@ -0,0 +1,59 @@
+package com.example.notes.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.bson.types.ObjectId;
+import com.example.notes.model.UserNote;
+
+/**
+ * Position of the last note returned in the page. Serialized into opaque token that client sends
+ * back in the "after" parameter to get the next page. Relevance ordered search can't continue from
+ * the note itself, so it keeps number of already returned notes instead.
+ */
+public record NoteCursor(NoteSort sort, String id, Instant updated, int offset) {
+
+  private static final String SEPARATOR = ":";
+
+  public static NoteCursor of(NoteSort sort, UserNote un) {
+    return new NoteCursor(sort, un.getId(), un.getUpdated(), 0);
+  }
+
+  public static NoteCursor ofOffset(int offset) {
+    return new NoteCursor(NoteSort.SCORE, "", null, offset);
+  }
+
+  /**
+   * Encode cursor into opaque url safe token
+   * 
+   * @return token
+   */
+  public String encode() {
+    String value = sort + SEPARATOR + (updated == null ? "" : updated.toEpochMilli()) + SEPARATOR
+        + offset + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode token created by {@link #encode()}
+   * 
+   * @param token Opaque token
+   * @return NoteCursor
+   * @throws IllegalArgumentException if token is invalid
+   */
+  public static NoteCursor decode(String token) {
+    String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+        .split(SEPARATOR, 4);
+    if (parts.length != 4)
+      throw new IllegalArgumentException("Invalid cursor: " + token);
+
+    NoteSort sort = NoteSort.valueOf(parts[0]);
+    if (sort != NoteSort.SCORE && !ObjectId.isValid(parts[3]))
+      throw new IllegalArgumentException("Invalid cursor: " + token);
+
+    return new NoteCursor(sort, parts[3],
+        parts[1].isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(parts[1])),
+        Integer.parseInt(parts[2]));
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.notes.repo;
+
+import java.util.Locale;
+
+/**
+ * Supported sort orders for paginated note lists. Each one has matching compound index so the
+ * cost of a page doesn't depend on the number of notes user has.
+ */
+public enum NoteSort {
+  // Sort by note id, that is also creation order
+  ID,
+
+  // Sort by last update time, note id is used as tie breaker
+  UPDATED,
+
+  // Sort by text search relevance, only used by search
+  SCORE;
+
+  public static NoteSort of(String value) {
+    return valueOf(value.toUpperCase(Locale.ROOT));
+  }
+}
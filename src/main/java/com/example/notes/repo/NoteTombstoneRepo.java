@@ -0,0 +1,19 @@
+package com.example.notes.repo;
+
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+import com.example.notes.model.NoteTombstone;
+
+/**
+ * MongoDB Repository for noteTombstone collection
+ */
+@Repository
+public interface NoteTombstoneRepo extends MongoRepository<NoteTombstone, String> {
+
+  // Only note ids, deletes in range are read from user_deleted index
+  @Query(value = "{'user': ?0, 'deleted': {$gt: ?1, $lte: ?2}}", fields = "{'noteId': 1}")
+  List<NoteTombstone> findDeleted(String user, Instant after, Instant upTo);
+}
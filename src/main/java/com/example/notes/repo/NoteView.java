@@ -0,0 +1,38 @@
+package com.example.notes.repo;
+
+import java.util.Locale;
+
+/**
+ * Fields returned by note list and search queries. Lists never read owner and shared users, so
+ * queries fetch only id, update time for the cursor and note text or its preview.
+ */
+public enum NoteView {
+  // Id and whole note text
+  FULL,
+
+  // Id and preview of note text cut by database, so whole text is never sent over the wire
+  SUMMARY;
+
+  // Max length of the preview in code points
+  public static final int PREVIEW_LENGTH = 100;
+
+  public static NoteView of(String value) {
+    return valueOf(value.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Cut note text to preview without splitting multi-byte characters, same as database does
+   * 
+   * @param note Note text
+   * @return first {@link #PREVIEW_LENGTH} code points of the note
+   */
+  public static String preview(String note) {
+    if (note.length() <= PREVIEW_LENGTH)
+      return note;
+
+    int end = 0;
+    for (int i = 0; i < PREVIEW_LENGTH && end < note.length(); i++)
+      end += Character.charCount(note.codePointAt(end));
+    return note.substring(0, end);
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.notes.repo;
+
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import com.example.notes.model.UserNote;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same note compression as {@link NoteCompression} for reactive template. Compression runs on the
+ * calling thread, since it's bounded by the note size.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNoteCompression
+    implements ReactiveBeforeSaveCallback<UserNote>, ReactiveAfterConvertCallback<UserNote> {
+
+  @Autowired
+  private NoteCompression compression;
+
+  @Override
+  public Publisher<UserNote> onBeforeSave(UserNote entity, Document document, String collection) {
+    return Mono.fromSupplier(() -> compression.onBeforeSave(entity, document, collection));
+  }
+
+  @Override
+  public Publisher<UserNote> onAfterConvert(UserNote entity, Document document,
+      String collection) {
+    return Mono.fromSupplier(() -> compression.onAfterConvert(entity, document, collection));
+  }
+}
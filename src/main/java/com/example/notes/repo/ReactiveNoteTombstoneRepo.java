@@ -0,0 +1,19 @@
+package com.example.notes.repo;
+
+import java.time.Instant;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import com.example.notes.model.NoteTombstone;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive MongoDB Repository for noteTombstone collection used in reactive mode
+ */
+@Repository
+public interface ReactiveNoteTombstoneRepo extends ReactiveMongoRepository<NoteTombstone, String> {
+
+  // Only note ids, deletes in range are read from user_deleted index
+  @Query(value = "{'user': ?0, 'deleted': {$gt: ?1, $lte: ?2}}", fields = "{'noteId': 1}")
+  Flux<NoteTombstone> findDeleted(String user, Instant after, Instant upTo);
+}
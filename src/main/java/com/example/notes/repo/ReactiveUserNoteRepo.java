@@ -0,0 +1,31 @@
+package com.example.notes.repo;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import com.example.notes.model.UserNote;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive MongoDB Repository for userNote collection used in reactive mode
+ */
+@Repository
+public interface ReactiveUserNoteRepo
+    extends ReactiveMongoRepository<UserNote, String>, ReactiveUserNoteRepoCustom {
+
+  Mono<Boolean> existsByOwnerAndId(String name, String id);
+
+  @Query(value = "{$or:[{'owner':'?0'},{'users':'?0'}]}", sort = "{'_id': 1}")
+  Flux<UserNote> streamAllForUser(String name);
+
+  @Query(
+      value = "{$or:[{$and:[{'owner':'?0'}, {'id':'?1'}]}, {$and:[{'users':'?0'}, {'id':'?1'}]}]}")
+  Mono<UserNote> findByOwnerAndIdOrUsersAndId(String name, String id);
+
+  // Only version to validate ETag without reading note text
+  @Query(
+      value = "{$or:[{$and:[{'owner':'?0'}, {'id':'?1'}]}, {$and:[{'users':'?0'}, {'id':'?1'}]}]}",
+      fields = "{'version': 1}")
+  Mono<UserNote> findVersionByOwnerAndIdOrUsersAndId(String name, String id);
+}
@@ -0,0 +1,31 @@
+package com.example.notes.repo;
+
+import java.time.Instant;
+import com.example.notes.model.UserNote;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of {@link UserNoteRepoCustom} with the same queries
+ */
+public interface ReactiveUserNoteRepoCustom {
+
+  Flux<UserNote> findAllForUser(String name, NoteSort sort, NoteCursor after, int limit,
+      NoteView view);
+
+  Flux<UserNote> findByQuery(String name, String query, NoteCursor after, int limit,
+      NoteView view);
+
+  Flux<UserNote> findByText(String name, String query, String language, int skip, int limit,
+      NoteView view);
+
+  Mono<UserNote> updateNote(String name, String id, String note, Long version);
+
+  Mono<UserNote> shareNote(String name, String id, String userId);
+
+  Mono<UserNote> unshareNote(String name, String id, String userId);
+
+  Flux<UserNote> findChanged(String name, SyncToken after, Instant upTo, int limit);
+
+  Mono<UserNote> deleteNote(String name, String id);
+}
@@ -0,0 +1,70 @@
+package com.example.notes.repo;
+
+import static com.example.notes.repo.UserNoteQueries.RETURN_NEW;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import com.example.notes.model.UserNote;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same queries as {@link UserNoteRepoImpl} executed with reactive driver
+ */
+class ReactiveUserNoteRepoImpl implements ReactiveUserNoteRepoCustom {
+
+  @Autowired
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Autowired
+  private NoteCompression compression;
+
+  @Override
+  public Flux<UserNote> findAllForUser(String name, NoteSort sort, NoteCursor after, int limit,
+      NoteView view) {
+    return mongoTemplate.find(UserNoteQueries.allForUser(name, sort, after, limit, view),
+        UserNote.class);
+  }
+
+  @Override
+  public Flux<UserNote> findByQuery(String name, String query, NoteCursor after, int limit,
+      NoteView view) {
+    return mongoTemplate.find(UserNoteQueries.byQuery(name, query, after, limit, view),
+        UserNote.class);
+  }
+
+  @Override
+  public Flux<UserNote> findByText(String name, String query, String language, int skip,
+      int limit, NoteView view) {
+    return mongoTemplate.find(UserNoteQueries.byText(name, query, language, skip, limit, view),
+        UserNote.class);
+  }
+
+  @Override
+  public Mono<UserNote> updateNote(String name, String id, String note, Long version) {
+    return mongoTemplate.findAndModify(UserNoteQueries.byOwner(name, id, version),
+        UserNoteQueries.update(note, compression), RETURN_NEW, UserNote.class);
+  }
+
+  @Override
+  public Mono<UserNote> shareNote(String name, String id, String userId) {
+    return mongoTemplate.findAndModify(UserNoteQueries.byOwner(name, id),
+        UserNoteQueries.share(userId), RETURN_NEW, UserNote.class);
+  }
+
+  @Override
+  public Mono<UserNote> unshareNote(String name, String id, String userId) {
+    return mongoTemplate.findAndModify(UserNoteQueries.sharedByOwner(name, id, userId),
+        UserNoteQueries.unshare(userId), RETURN_NEW, UserNote.class);
+  }
+
+  @Override
+  public Flux<UserNote> findChanged(String name, SyncToken after, Instant upTo, int limit) {
+    return mongoTemplate.find(UserNoteQueries.changed(name, after, upTo, limit), UserNote.class);
+  }
+
+  @Override
+  public Mono<UserNote> deleteNote(String name, String id) {
+    return mongoTemplate.findAndRemove(UserNoteQueries.byOwner(name, id), UserNote.class);
+  }
+}
@@ -0,0 +1,15 @@
+package com.example.notes.repo;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import com.example.notes.model.User;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive MongoDB Repository for user collection used in reactive mode
+ */
+@Repository
+public interface ReactiveUserRepo extends ReactiveMongoRepository<User, String> {
+
+  Mono<User> findByName(String name);
+}
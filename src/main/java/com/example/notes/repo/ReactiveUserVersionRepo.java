@@ -0,0 +1,13 @@
+package com.example.notes.repo;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import com.example.notes.model.UserVersion;
+
+/**
+ * Reactive MongoDB Repository for userVersion collection used in reactive mode
+ */
+@Repository
+public interface ReactiveUserVersionRepo
+    extends ReactiveMongoRepository<UserVersion, String>, ReactiveUserVersionRepoCustom {
+}
@@ -0,0 +1,18 @@
+package com.example.notes.repo;
+
+import java.util.Collection;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of {@link UserVersionRepoCustom}
+ */
+public interface ReactiveUserVersionRepoCustom {
+
+  /**
+   * Increment version of each user, creating missing versions
+   * 
+   * @param users User Ids
+   * @return completion
+   */
+  Mono<Void> increment(Collection<String> users);
+}
@@ -0,0 +1,32 @@
+package com.example.notes.repo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import com.example.notes.model.UserVersion;
+import reactor.core.publisher.Mono;
+
+/**
+ * All versions are incremented with one unordered bulk of upserts
+ */
+class ReactiveUserVersionRepoImpl implements ReactiveUserVersionRepoCustom {
+
+  @Autowired
+  private ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Mono<Void> increment(Collection<String> users) {
+    if (users.isEmpty())
+      return Mono.empty();
+
+    ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, UserVersion.class);
+    for (String user : users)
+      bulk.upsert(new Query(where("id").is(user)), new Update().inc("version", 1));
+    return bulk.execute().then();
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.notes.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.bson.types.ObjectId;
+
+/**
+ * Position in the change feed of the user. Notes are read in (updated, id) order, so position is
+ * the last returned note or only the time when client is up to date and id is null. Issued is the
+ * time client started to sync, so the token expires together with tombstones it relies on.
+ * Serialized into opaque token that client sends back to get the next changes.
+ */
+public record SyncToken(Instant updated, String id, Instant issued) {
+
+  private static final String SEPARATOR = ":";
+
+  /**
+   * Encode token into opaque url safe string
+   * 
+   * @return token
+   */
+  public String encode() {
+    String value = issued.toEpochMilli() + SEPARATOR + updated.toEpochMilli() + SEPARATOR
+        + (id == null ? "" : id);
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode token created by {@link #encode()}
+   * 
+   * @param token Opaque token
+   * @return SyncToken
+   * @throws IllegalArgumentException if token is invalid
+   */
+  public static SyncToken decode(String token) {
+    String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+        .split(SEPARATOR, 3);
+    if (parts.length != 3 || !parts[2].isEmpty() && !ObjectId.isValid(parts[2]))
+      throw new IllegalArgumentException("Invalid sync token: " + token);
+
+    return new SyncToken(Instant.ofEpochMilli(Long.parseLong(parts[1])),
+        parts[2].isEmpty() ? null : parts[2], Instant.ofEpochMilli(Long.parseLong(parts[0])));
+  }
+}
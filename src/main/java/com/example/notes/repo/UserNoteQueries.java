@@ -0,0 +1,148 @@
+package com.example.notes.repo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import java.time.Instant;
+import java.util.Date;
+import java.util.regex.Pattern;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Queries and updates for userNote collection shared by blocking and reactive repositories
+ */
+final class UserNoteQueries {
+
+  // Return document after update, so caller has shared users to evict from cache
+  static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+  // First characters of note text for summary view, compressed notes have them stored
+  private static final MongoExpression PREVIEW = MongoExpression.create("{$substrCP: [{$ifNull: "
+      + "['$note', '$preview']}, 0, " + NoteView.PREVIEW_LENGTH + "]}");
+
+  private UserNoteQueries() {}
+
+  static Query allForUser(String name, NoteSort sort, NoteCursor after, int limit,
+      NoteView view) {
+    return fields(page(forUser(name), sort, after, limit), view);
+  }
+
+  static Query byQuery(String name, String query, NoteCursor after, int limit, NoteView view) {
+    // Compressed notes are matched by their words with query converted the same way
+    Criteria match = where(NoteCompression.NOTE).regex(Pattern.quote(query));
+    String words = NoteCodec.searchText(query);
+    if (!words.isEmpty())
+      match = new Criteria().orOperator(match,
+          where(NoteCompression.SEARCH_TEXT).regex(Pattern.quote(words)));
+    Criteria criteria = new Criteria().andOperator(forUser(name), match);
+    return fields(page(criteria, NoteSort.ID, after, limit), view);
+  }
+
+  static Query byText(String name, String query, String language, int skip, int limit,
+      NoteView view) {
+    TextCriteria text = (language == null ? TextCriteria.forDefaultLanguage()
+        : TextCriteria.forLanguage(language)).matching(query);
+
+    return fields(TextQuery.queryText(text).sortByScore().addCriteria(forUser(name)).skip(skip)
+        .limit(limit), view);
+  }
+
+  static Query changed(String name, SyncToken after, Instant upTo, int limit) {
+    Criteria changed = where("updated").lte(Date.from(upTo));
+    if (after != null) {
+      Date updated = Date.from(after.updated());
+      changed = after.id() == null ? changed.gt(updated)
+          : new Criteria().andOperator(changed, new Criteria().orOperator(
+              where("updated").gt(updated),
+              where("updated").is(updated).and("id").gt(new ObjectId(after.id()))));
+    }
+
+    return fields(new Query(new Criteria().andOperator(forUser(name), changed))
+        .with(Sort.by("updated", "id")).limit(limit), NoteView.FULL);
+  }
+
+  static Query byOwner(String name, String id) {
+    return new Query(where("id").is(id).and("owner").is(name));
+  }
+
+  static Query byOwner(String name, String id, Long version) {
+    Query query = byOwner(name, id);
+    if (version != null)
+      query.addCriteria(where("version").is(version));
+
+    return query;
+  }
+
+  static Query sharedByOwner(String name, String id, String userId) {
+    return byOwner(name, id).addCriteria(where("users").is(userId));
+  }
+
+  static Update update(String note, NoteCompression compression) {
+    return compression.update(changed(), note);
+  }
+
+  static Update share(String userId) {
+    return changed().addToSet("users", userId);
+  }
+
+  static Update unshare(String userId) {
+    return changed().pull("users", userId);
+  }
+
+  static Criteria forUser(String name) {
+    return new Criteria().orOperator(where("owner").is(name), where("users").is(name));
+  }
+
+  /**
+   * Project only fields used by lists. Id is always returned and update time is needed for the
+   * cursor. Summary preview is cut by $substrCP, so multi-byte characters are never split.
+   * Compressed note is only read by full view, summary reads its stored preview.
+   */
+  private static Query fields(Query query, NoteView view) {
+    Field fields = query.fields().include("updated");
+    if (view == NoteView.SUMMARY)
+      fields.project(PREVIEW).as(NoteCompression.NOTE);
+    else
+      fields.include(NoteCompression.NOTE, NoteCompression.NOTE_Z, NoteCompression.CODEC);
+
+    return query;
+  }
+
+  private static Update changed() {
+    return new Update().set("updated", Instant.now()).inc("version", 1);
+  }
+
+  private static Query page(Criteria criteria, NoteSort sort, NoteCursor after, int limit) {
+    if (after != null)
+      criteria = new Criteria().andOperator(criteria, after(after));
+
+    Query query = new Query(criteria).limit(limit);
+    return switch (sort) {
+      case ID -> query.with(Sort.by("id"));
+      case UPDATED -> query.with(Sort.by("updated", "id"));
+      case SCORE -> throw new IllegalArgumentException("Sort by score requires text query");
+    };
+  }
+
+  private static Criteria after(NoteCursor cursor) {
+    ObjectId id = new ObjectId(cursor.id());
+    if (cursor.sort() == NoteSort.ID)
+      return where("id").gt(id);
+
+    // Notes without update time are sorted first, so every note that has it is still ahead
+    if (cursor.updated() == null)
+      return new Criteria().orOperator(where("updated").is(null).and("id").gt(id),
+          where("updated").ne(null));
+
+    Date updated = Date.from(cursor.updated());
+    return new Criteria().orOperator(where("updated").gt(updated),
+        where("updated").is(updated).and("id").gt(id));
+  }
+}
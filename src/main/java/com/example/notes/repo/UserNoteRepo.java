@@ -5,6 +5,8 @@ package com.example.notes.repo;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -14,17 +16,27 @@ import com.example.notes.model.UserNote;
  * MongoDB Repository for userNote collection
  */
 @Repository
-public interface UserNoteRepo extends MongoRepository<UserNote, String> {
+public interface UserNoteRepo extends MongoRepository<UserNote, String>, UserNoteRepoCustom {
 
   UserNote findByOwnerAndId(String name, String id);
 
-  @Query(value = "{$or:[{'owner':'?0'},{'users':'?0'}]}")
-  Collection<UserNote> findAllForUser(String name);
+  boolean existsByOwnerAndId(String name, String id);
 
-  @Query(value = "{$and:[{$or:[{'owner':'?0'},{'users':'?0'}]},{'note':{$regex: '?1'}}]}")
-  List<UserNote> findByQuery(String name, String query);
+  // Only fields required to check ownership and evict cache for shared users
+  @Query(fields = "{'owner': 1, 'users': 1}")
+  List<UserNote> findByOwnerAndIdIn(String name, Collection<String> ids);
+
+  @Meta(cursorBatchSize = 500)
+  @Query(value = "{$or:[{'owner':'?0'},{'users':'?0'}]}", sort = "{'_id': 1}")
+  Stream<UserNote> streamAllForUser(String name);
 
   @Query(
       value = "{$or:[{$and:[{'owner':'?0'}, {'id':'?1'}]}, {$and:[{'users':'?0'}, {'id':'?1'}]}]}")
   UserNote findByOwnerAndIdOrUsersAndId(String name, String id);
+
+  // Only version to validate ETag without reading note text
+  @Query(
+      value = "{$or:[{$and:[{'owner':'?0'}, {'id':'?1'}]}, {$and:[{'users':'?0'}, {'id':'?1'}]}]}",
+      fields = "{'version': 1}")
+  UserNote findVersionByOwnerAndIdOrUsersAndId(String name, String id);
 }
@@ -0,0 +1,109 @@
+package com.example.notes.repo;
+
+import java.time.Instant;
+import java.util.List;
+import com.example.notes.model.UserNote;
+
+/**
+ * Custom queries for userNote collection that can't be expressed with query methods
+ */
+public interface UserNoteRepoCustom {
+
+  /**
+   * Find single page of notes where user is owner or included into user's list. Notes have only
+   * fields of given view.
+   * 
+   * @param name User Name
+   * @param sort Sort order
+   * @param after Position of the last note from previous page or null for the first page
+   * @param limit Max number of notes to return
+   * @param view Returned fields
+   * @return list of notes
+   */
+  List<UserNote> findAllForUser(String name, NoteSort sort, NoteCursor after, int limit,
+      NoteView view);
+
+  /**
+   * Find single page of notes that contain query as a substring where user is owner or included
+   * into user's list. This query can't use an index and scans all notes user has access to.
+   * 
+   * @param name User Name
+   * @param query Search Query
+   * @param after Position of the last note from previous page or null for the first page
+   * @param limit Max number of notes to return
+   * @param view Returned fields
+   * @return list of notes
+   */
+  List<UserNote> findByQuery(String name, String query, NoteCursor after, int limit,
+      NoteView view);
+
+  /**
+   * Find notes that match query using text index where user is owner or included into user's list.
+   * Notes are ordered by relevance.
+   * 
+   * @param name User Name
+   * @param query Search Query with words, "phrases" or -negations
+   * @param language Language used for stemming and stop words or null for index default
+   * @param skip Number of notes to skip
+   * @param limit Max number of notes to return
+   * @param view Returned fields
+   * @return list of notes
+   */
+  List<UserNote> findByText(String name, String query, String language, int skip, int limit,
+      NoteView view);
+
+  /**
+   * Atomically set note text where user is the owner and note has expected version
+   * 
+   * @param name Owner Id
+   * @param id Note Id
+   * @param note New note text
+   * @param version Expected version or null to update any version
+   * @return updated note or null when note doesn't exist, user is not the owner or version
+   *         doesn't match
+   */
+  UserNote updateNote(String name, String id, String note, Long version);
+
+  /**
+   * Atomically add user into user's list where user is the owner. Concurrent shares of the same
+   * note never overwrite each other.
+   * 
+   * @param name Owner Id
+   * @param id Note Id
+   * @param userId User Id to share with
+   * @return updated note or null when note doesn't exist or user is not the owner
+   */
+  UserNote shareNote(String name, String id, String userId);
+
+  /**
+   * Atomically delete note where user is the owner
+   * 
+   * @param name Owner Id
+   * @param id Note Id
+   * @return deleted note or null when note doesn't exist or user is not the owner
+   */
+  UserNote deleteNote(String name, String id);
+
+  /**
+   * Atomically remove user from user's list where user is the owner and note is shared with user
+   * 
+   * @param name Owner Id
+   * @param id Note Id
+   * @param userId User Id to remove
+   * @return updated note or null when note doesn't exist, user is not the owner or note isn't
+   *         shared with the user
+   */
+  UserNote unshareNote(String name, String id, String userId);
+
+  /**
+   * Find notes changed after given position up to given time where user is owner or included into
+   * user's list. Notes are ordered by update time and id and have only fields of full view.
+   * 
+   * @param name User Name
+   * @param after Position of the last change client has or null for all notes
+   * @param upTo Latest update time to return
+   * @param limit Max number of notes to return
+   * @return list of notes
+   */
+  List<UserNote> findChanged(String name, SyncToken after, Instant upTo, int limit);
+}
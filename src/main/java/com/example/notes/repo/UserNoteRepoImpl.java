@@ -0,0 +1,71 @@
+package com.example.notes.repo;
+
+import static com.example.notes.repo.UserNoteQueries.RETURN_NEW;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import com.example.notes.model.UserNote;
+
+/**
+ * Keyset pagination and search for userNote collection. Each page continues right after the last
+ * returned note, so the query is always an index range scan limited by page size instead of skip.
+ * Writes check ownership in the filter, so each of them is a single atomic round trip.
+ */
+class UserNoteRepoImpl implements UserNoteRepoCustom {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private NoteCompression compression;
+
+  @Override
+  public List<UserNote> findAllForUser(String name, NoteSort sort, NoteCursor after, int limit,
+      NoteView view) {
+    return mongoTemplate.find(UserNoteQueries.allForUser(name, sort, after, limit, view),
+        UserNote.class);
+  }
+
+  @Override
+  public List<UserNote> findByQuery(String name, String query, NoteCursor after, int limit,
+      NoteView view) {
+    return mongoTemplate.find(UserNoteQueries.byQuery(name, query, after, limit, view),
+        UserNote.class);
+  }
+
+  @Override
+  public List<UserNote> findByText(String name, String query, String language, int skip,
+      int limit, NoteView view) {
+    return mongoTemplate.find(UserNoteQueries.byText(name, query, language, skip, limit, view),
+        UserNote.class);
+  }
+
+  @Override
+  public UserNote updateNote(String name, String id, String note, Long version) {
+    return mongoTemplate.findAndModify(UserNoteQueries.byOwner(name, id, version),
+        UserNoteQueries.update(note, compression), RETURN_NEW, UserNote.class);
+  }
+
+  @Override
+  public UserNote shareNote(String name, String id, String userId) {
+    return mongoTemplate.findAndModify(UserNoteQueries.byOwner(name, id),
+        UserNoteQueries.share(userId), RETURN_NEW, UserNote.class);
+  }
+
+  @Override
+  public UserNote unshareNote(String name, String id, String userId) {
+    return mongoTemplate.findAndModify(UserNoteQueries.sharedByOwner(name, id, userId),
+        UserNoteQueries.unshare(userId), RETURN_NEW, UserNote.class);
+  }
+
+  @Override
+  public List<UserNote> findChanged(String name, SyncToken after, Instant upTo, int limit) {
+    return mongoTemplate.find(UserNoteQueries.changed(name, after, upTo, limit), UserNote.class);
+  }
+
+  @Override
+  public UserNote deleteNote(String name, String id) {
+    return mongoTemplate.findAndRemove(UserNoteQueries.byOwner(name, id), UserNote.class);
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.notes.repo;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import com.example.notes.model.UserVersion;
+
+/**
+ * MongoDB Repository for userVersion collection
+ */
+@Repository
+public interface UserVersionRepo
+    extends MongoRepository<UserVersion, String>, UserVersionRepoCustom {
+}
@@ -0,0 +1,16 @@
+package com.example.notes.repo;
+
+import java.util.Collection;
+
+/**
+ * Custom writes for userVersion collection
+ */
+public interface UserVersionRepoCustom {
+
+  /**
+   * Increment version of each user, creating missing versions
+   * 
+   * @param users User Ids
+   */
+  void increment(Collection<String> users);
+}
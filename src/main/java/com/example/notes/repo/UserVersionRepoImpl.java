@@ -0,0 +1,31 @@
+package com.example.notes.repo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import com.example.notes.model.UserVersion;
+
+/**
+ * All versions are incremented with one unordered bulk of upserts
+ */
+class UserVersionRepoImpl implements UserVersionRepoCustom {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public void increment(Collection<String> users) {
+    if (users.isEmpty())
+      return;
+
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, UserVersion.class);
+    for (String user : users)
+      bulk.upsert(new Query(where("id").is(user)), new Update().inc("version", 1));
+    bulk.execute();
+  }
+}
@@ -1,24 +1,33 @@
 package com.example.notes.security;
 
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import com.example.notes.Constants;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.timing.RequestTiming;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
- * Security Configuration
+ * Security Configuration for servlet (MVC) mode
  * 
  * @author Igor Peonte <igor.144@gmail.com>
  *
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthConfig {
 
   @Bean
@@ -37,6 +46,8 @@ public class AuthConfig {
         authz
           // Allow swagger UI
           .requestMatchers(HttpMethod.GET, "/swagger-ui*/**", "/v3/api-docs/**").permitAll()
+          // Allow health and readiness probes
+          .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
           // Allow signup page
           .requestMatchers(HttpMethod.POST, Constants.BASE_URL + Constants.SIGNUP_URL).permitAll()
           
@@ -48,16 +59,33 @@ public class AuthConfig {
           .loginProcessingUrl(Constants.BASE_URL + Constants.LOGIN_URL)
           .usernameParameter("name").passwordParameter("password")
           .successHandler((req, res, auth) -> res.setStatus(HttpStatus.OK.value()))
-          .failureHandler(new SimpleUrlAuthenticationFailureHandler())
-      );
+          .failureHandler(new SimpleUrlAuthenticationFailureHandler() {
+            @Override
+            public void onAuthenticationFailure(HttpServletRequest req, HttpServletResponse res,
+                AuthenticationException ex) throws IOException, ServletException {
+              if (ex instanceof PasswordHashingRejectedException) {
+                // Server is overloaded, credentials are not checked
+                res.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                res.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+              } else if (ex.getCause() instanceof RateLimitExceededException rle) {
+                // Too many login attempts for the same user from the same address
+                res.setHeader(HttpHeaders.RETRY_AFTER, rle.getRetryAfterSeconds());
+                res.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+              } else {
+                super.onAuthenticationFailure(req, res, ex);
+              }
+            }
+          })
+      )
+      
+      // End of authentication stage of sampled requests
+      .addFilterAfter((req, res, chain) -> {
+        RequestTiming.authenticated();
+        chain.doFilter(req, res);
+      }, AuthorizationFilter.class);
     
     // @formatter:on
 
     return http.build();
   }
-
-  @Bean
-  PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
-  }
 }
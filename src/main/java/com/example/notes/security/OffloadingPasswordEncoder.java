@@ -0,0 +1,86 @@
+package com.example.notes.security;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * PasswordEncoder that runs hashing on dedicated bounded pool instead of request thread. The
+ * request thread still waits for the result, but number of CPU heavy hashes is limited by the pool
+ * size and requests over the queue capacity are rejected right away.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+
+  private final ExecutorService executor;
+
+  private final Counter rejected;
+
+  public OffloadingPasswordEncoder(PasswordEncoder delegate, ExecutorService executor,
+      Counter rejected) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.rejected = rejected;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit("encode", () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit("matches", () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    // Only parses the hash, no need to offload
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T submit(String operation, Callable<T> task) {
+    long submitted = System.nanoTime();
+    try {
+      return executor.submit(() -> hash(operation, submitted, task)).get();
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new PasswordHashingRejectedException("Password hashing pool is full", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AuthenticationServiceException("Interrupted while hashing password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re)
+        throw re;
+      throw new AuthenticationServiceException("Error hashing password", e.getCause());
+    }
+  }
+
+  /**
+   * Run hashing task on the pool thread and record {@link PasswordHashEvent} when enabled
+   */
+  private static <T> T hash(String operation, long submitted, Callable<T> task) throws Exception {
+    PasswordHashEvent event = new PasswordHashEvent();
+    if (!event.isEnabled())
+      return task.call();
+
+    event.queued = System.nanoTime() - submitted;
+    event.begin();
+    try {
+      return task.call();
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = operation;
+        event.commit();
+      }
+    }
+  }
+}
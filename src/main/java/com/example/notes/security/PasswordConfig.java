@@ -0,0 +1,63 @@
+package com.example.notes.security;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import com.example.notes.config.NotesProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Password hashing shared by servlet and reactive modes
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ *
+ */
+@Configuration
+public class PasswordConfig {
+
+  /**
+   * Bounded pool the password hashing is offloaded to. It isn't default candidate, so it doesn't
+   * replace application task executor, and it's shut down with the context.
+   * 
+   * @param props NotesProperties
+   * @param registry MeterRegistry
+   * @return ExecutorService with pool metrics
+   */
+  @Bean(destroyMethod = "shutdown", defaultCandidate = false)
+  ExecutorService passwordHashingExecutor(NotesProperties props, MeterRegistry registry) {
+    NotesProperties.Password config = props.getPassword();
+    int poolSize = config.getPoolSize() > 0 ? config.getPoolSize()
+        : Runtime.getRuntime().availableProcessors();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L,
+        TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+        new CustomizableThreadFactory("password-"));
+
+    return ExecutorServiceMetrics.monitor(registry, executor, "password.hashing");
+  }
+
+  @Bean
+  PasswordEncoder passwordEncoder(NotesProperties props, MeterRegistry registry,
+      @Qualifier("passwordHashingExecutor") ExecutorService executor) {
+    NotesProperties.Password config = props.getPassword();
+    PasswordEncoder bcrypt = new BCryptPasswordEncoder(config.getBcryptStrength());
+    DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(config.getAlgorithm(),
+        Map.of("bcrypt", bcrypt, "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()));
+
+    // Hashes saved before switch to delegating encoder don't have {id} prefix
+    encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+    return new OffloadingPasswordEncoder(encoder, executor,
+        registry.counter("password.hashing.rejected"));
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.notes.security;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for password hashing on the hashing pool. Duration is hashing only, time spent in the
+ * pool queue is recorded separately. Disabled unless recording uses notes.jfc settings.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Name("com.example.notes.PasswordHash")
+@Label("Password Hash")
+@Category("User Notes")
+@Description("Password encoded or matched on the hashing pool")
+@Enabled(false)
+@StackTrace(false)
+class PasswordHashEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Queued")
+  @Description("Time between submit and start of hashing")
+  @Timespan
+  long queued;
+}
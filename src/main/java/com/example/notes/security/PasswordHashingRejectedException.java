@@ -0,0 +1,16 @@
+package com.example.notes.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when password hashing pool and its queue are full
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+  // Default Serial Version UID
+  private static final long serialVersionUID = 1L;
+
+  public PasswordHashingRejectedException(String msg, Throwable cause) {
+    super(msg, cause);
+  }
+}
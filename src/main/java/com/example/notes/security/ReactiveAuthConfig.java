@@ -0,0 +1,150 @@
+package com.example.notes.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerFormLoginAuthenticationConverter;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import com.example.notes.Constants;
+import com.example.notes.ratelimit.KeyedRateLimit.Key;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.ratelimit.ReactiveKeyedRateLimiter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Security Configuration for reactive (WebFlux) mode. Same rules and login responses as
+ * {@link AuthConfig}. WebFlux form login has fixed parameter names, so login filter is built here
+ * with "name" parameter. Password is checked on bounded elastic scheduler, so event loop never
+ * waits for hashing.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ *
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthConfig {
+
+  private static final String ANONYMOUS = "anonymous";
+
+  @Bean
+  SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+      ReactiveUserSecurityService userService, PasswordEncoder passwordEncoder,
+      ReactiveKeyedRateLimiter limiter) {
+    ServerWebExchangeMatcher loginMatcher = ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST,
+        Constants.BASE_URL + Constants.LOGIN_URL);
+    ServerSecurityContextRepository contextRepo = new WebSessionServerSecurityContextRepository();
+
+    // @formatter:off
+    
+    http
+      // Disable all security headers and csrf for demo
+      .csrf(csrf -> csrf.disable())
+      .headers(headers -> headers.disable())
+      .httpBasic(basic -> basic.disable())
+      .formLogin(form -> form.disable())
+      .securityContextRepository(contextRepo)
+      
+      .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)))
+      
+      // Authenticate all
+      .authorizeExchange(authz ->
+        authz
+          // Allow swagger UI
+          .pathMatchers(HttpMethod.GET, "/swagger-ui*/**", "/v3/api-docs/**").permitAll()
+          // Allow health and readiness probes
+          .pathMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
+          // Allow signup page
+          .pathMatchers(HttpMethod.POST, Constants.BASE_URL + Constants.SIGNUP_URL).permitAll()
+          
+          // Everything authenticated except login page
+          .anyExchange().authenticated())
+      
+      // Form login with "name" and "password" parameters
+      .addFilterAt(loginFilter(userService, passwordEncoder, loginMatcher, contextRepo),
+          SecurityWebFiltersOrder.FORM_LOGIN)
+      .addFilterBefore(loginRateLimit(limiter, loginMatcher), SecurityWebFiltersOrder.FORM_LOGIN);
+    
+    // @formatter:on
+
+    return http.build();
+  }
+
+  private AuthenticationWebFilter loginFilter(ReactiveUserSecurityService userService,
+      PasswordEncoder passwordEncoder, ServerWebExchangeMatcher loginMatcher,
+      ServerSecurityContextRepository contextRepo) {
+    UserDetailsRepositoryReactiveAuthenticationManager manager =
+        new UserDetailsRepositoryReactiveAuthenticationManager(userService);
+    manager.setPasswordEncoder(passwordEncoder);
+    manager.setUserDetailsPasswordService(userService);
+
+    ServerFormLoginAuthenticationConverter converter = new ServerFormLoginAuthenticationConverter();
+    converter.setUsernameParameter("name");
+    converter.setPasswordParameter("password");
+
+    AuthenticationWebFilter filter = new AuthenticationWebFilter(manager);
+    filter.setRequiresAuthenticationMatcher(loginMatcher);
+    filter.setServerAuthenticationConverter(converter);
+    filter.setSecurityContextRepository(contextRepo);
+    filter.setAuthenticationSuccessHandler((exchange, auth) -> {
+      exchange.getExchange().getResponse().setStatusCode(HttpStatus.OK);
+      return Mono.empty();
+    });
+    filter.setAuthenticationFailureHandler((exchange, ex) -> {
+      ServerHttpResponse res = exchange.getExchange().getResponse();
+      if (ex instanceof PasswordHashingRejectedException) {
+        // Server is overloaded, credentials are not checked
+        res.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        res.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+      } else {
+        res.setStatusCode(HttpStatus.UNAUTHORIZED);
+      }
+      return Mono.empty();
+    });
+
+    return filter;
+  }
+
+  /**
+   * Limit login attempts for the same user from the same address before password is checked
+   */
+  private WebFilter loginRateLimit(ReactiveKeyedRateLimiter limiter,
+      ServerWebExchangeMatcher loginMatcher) {
+    return (exchange, chain) -> loginMatcher.matches(exchange)
+        .flatMap(match -> !match.isMatch() ? chain.filter(exchange)
+            : exchange.getFormData().flatMap(form -> chain.filter(exchange)
+                // Same operation tag as login rate limit in servlet mode
+                .transform(limiter.mono("login", "loadUserByUsername", Key.USERNAME_AND_IP,
+                    (form.containsKey("name") ? form.getFirst("name") : ANONYMOUS) + "|"
+                        + clientIp(exchange))))
+                .onErrorResume(RateLimitExceededException.class, e -> {
+                  // Too many login attempts for the same user from the same address
+                  ServerHttpResponse res = exchange.getResponse();
+                  res.getHeaders().set(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds());
+                  res.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                  return res.setComplete();
+                }));
+  }
+
+  private static String clientIp(ServerWebExchange exchange) {
+    return exchange.getRequest().getRemoteAddress() == null ? ""
+        : exchange.getRequest().getRemoteAddress().getAddress().getHostAddress();
+  }
+}
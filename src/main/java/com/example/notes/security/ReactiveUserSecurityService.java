@@ -0,0 +1,53 @@
+package com.example.notes.security;
+
+import java.util.Collections;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import com.example.notes.repo.ReactiveUserRepo;
+import com.example.notes.service.UserService;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive mode variant of {@link UserSecurityService} and {@link UserPasswordUpgradeService}.
+ * Login is rate limited by filter in {@link ReactiveAuthConfig} since user name and client address
+ * are not known here.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserSecurityService
+    implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+  @Autowired
+  private ReactiveUserRepo userRepo;
+
+  @Autowired
+  private UserService userService;
+
+  @Override
+  public Mono<UserDetails> findByUsername(String name) {
+    // User name in UserDetails is the user id, same as in servlet mode
+    return userRepo.findByName(name)
+        .<UserDetails>map(user -> new User(user.getId(), user.getPassword(),
+            Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"))))
+        // Same response as unknown user, as in servlet mode
+        .onErrorMap(e -> new UsernameNotFoundException("Error find user: " + name, e));
+  }
+
+  @Override
+  public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+    return Mono.<UserDetails>fromCallable(() -> {
+      userService.updatePassword(user.getUsername(), newPassword);
+      return User.withUserDetails(user).password(newPassword).build();
+    }).subscribeOn(Schedulers.boundedElastic())
+        // Login already succeeded, hash is upgraded next time
+        .onErrorReturn(user);
+  }
+}
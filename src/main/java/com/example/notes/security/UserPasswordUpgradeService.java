@@ -0,0 +1,35 @@
+package com.example.notes.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+import com.example.notes.service.UserService;
+
+/**
+ * Called by Spring Security after successful login when stored hash uses different algorithm or
+ * lower cost than configured one. Kept out of UserSecurityService, so upgrade doesn't take second
+ * permit from the "login" rate limiter.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserPasswordUpgradeService implements UserDetailsPasswordService {
+
+  @Autowired
+  private UserService userService;
+
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    try {
+      // User name in UserDetails is the user id
+      userService.updatePassword(user.getUsername(), newPassword);
+    } catch (Exception e) {
+      // Login already succeeded, hash is upgraded next time
+      return user;
+    }
+
+    return User.withUserDetails(user).password(newPassword).build();
+  }
+}
@@ -1,36 +1,126 @@
 package com.example.notes.security;
 
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import com.example.notes.config.NotesProperties;
 import com.example.notes.model.User;
+import com.example.notes.ratelimit.KeyedRateLimit;
+import com.example.notes.ratelimit.KeyedRateLimit.Key;
+import com.example.notes.service.UserChangedEvent;
 import com.example.notes.service.UserService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 
 @Service
-@RateLimiter(name = "login")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@KeyedRateLimit(name = "login", key = Key.USERNAME_AND_IP)
 public class UserSecurityService implements UserDetailsService {
 
+  /**
+   * Cached user credentials. Spring Security erases password in returned UserDetails after
+   * authentication, so UserDetails itself can't be cached and is built for every login.
+   */
+  private record Credentials(String id, String password) {
+  }
+
   @Autowired
   private UserService userService;
 
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  // User credentials by name. Empty value for unknown names
+  private Cache<String, Optional<Credentials>> cache;
+
+  // Incremented on every eviction so a lookup that raced with signup isn't cached
+  private final AtomicLong generation = new AtomicLong();
+
+  @PostConstruct
+  public void init() {
+    NotesProperties.UserCache config = props.getUserCache();
+    cache = Caffeine.newBuilder().maximumSize(config.getMaxSize())
+        .expireAfter(new Expiry<String, Optional<Credentials>>() {
+          @Override
+          public long expireAfterCreate(String name, Optional<Credentials> user, long now) {
+            return (user.isPresent() ? config.getTtl() : config.getNegativeTtl()).toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(String name, Optional<Credentials> user, long now,
+              long remaining) {
+            return expireAfterCreate(name, user, now);
+          }
+
+          @Override
+          public long expireAfterRead(String name, Optional<Credentials> user, long now,
+              long remaining) {
+            return remaining;
+          }
+        }).recordStats().build();
+
+    CaffeineCacheMetrics.monitor(registry, cache, "users");
+  }
+
   @Override
   public UserDetails loadUserByUsername(String name) throws UsernameNotFoundException {
+    Optional<Credentials> user =
+        props.getUserCache().isEnabled() ? findCachedUser(name) : findUser(name);
+
+    if (user.isEmpty())
+      throw new UsernameNotFoundException("User [" + name + "] not found");
+
+    return new org.springframework.security.core.userdetails.User(user.get().id(),
+        user.get().password(), Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")));
+  }
+
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    generation.incrementAndGet();
+    cache.invalidate(event.name());
+  }
+
+  /**
+   * User is looked up outside of cache compute, so database call doesn't hold map bin lock which
+   * would pin virtual thread to its carrier
+   */
+  private Optional<Credentials> findCachedUser(String name) {
+    Optional<Credentials> user = cache.getIfPresent(name);
+    if (user != null)
+      return user;
+
+    long gen = generation.get();
+    user = findUser(name);
+    if (gen == generation.get())
+      cache.put(name, user);
+
+    return user;
+  }
+
+  private Optional<Credentials> findUser(String name) {
     User user;
     try {
       user = userService.findUser(name);
     } catch (Exception e) {
+      // Not cached, so next login tries database again
       throw new UsernameNotFoundException("Error find user: " + name, e);
     }
 
-    if (user == null)
-      throw new UsernameNotFoundException("User [" + name + "] not found");
-
-    return new org.springframework.security.core.userdetails.User(user.getId(), user.getPassword(),
-        Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")));
+    return Optional.ofNullable(user).map(u -> new Credentials(u.getId(), u.getPassword()));
   }
 }
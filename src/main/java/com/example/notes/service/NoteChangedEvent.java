@@ -0,0 +1,16 @@
+package com.example.notes.service;
+
+import java.util.Set;
+
+/**
+ * Published after note is written, so connected owner and shared users can be notified
+ */
+public record NoteChangedEvent(Type type, String id, Set<String> users) {
+
+  /**
+   * Kind of change
+   */
+  public enum Type {
+    ADD, UPDATE, DELETE, SHARE, UNSHARE
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.notes.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for single {@link UserNoteService} operation. Disabled unless recording uses
+ * notes.jfc settings, disabled event is never committed and its fields are never computed.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Name("com.example.notes.NoteOperation")
+@Label("Note Operation")
+@Category("User Notes")
+@Description("UserNoteService operation with number of returned notes and their size")
+@Enabled(false)
+@StackTrace(false)
+class NoteOperationEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Results")
+  @Description("Number of returned notes")
+  int results;
+
+  @Label("Payload")
+  @Description("UTF-8 size of returned note texts")
+  @DataAmount
+  long payload;
+
+  @Label("Error")
+  @Description("Exception class when operation failed")
+  String error;
+}
@@ -0,0 +1,90 @@
+package com.example.notes.service;
+
+import java.util.List;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import com.example.notes.dto.NoteSyncDTO;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNotePageDTO;
+
+/**
+ * Emits {@link NoteOperationEvent} for every public {@link UserNoteService} method. Runs before
+ * other aspects, so event duration includes rate limiter and timer. When event is disabled only
+ * the enabled check is added to the call.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class NoteOperationEventAspect {
+
+  @Around("execution(public * com.example.notes.service.UserNoteService.*(..))")
+  public Object record(ProceedingJoinPoint pjp) throws Throwable {
+    NoteOperationEvent event = new NoteOperationEvent();
+    if (!event.isEnabled())
+      return pjp.proceed();
+
+    event.begin();
+    Object result = null;
+    try {
+      result = pjp.proceed();
+      return result;
+    } catch (Throwable e) {
+      event.error = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = pjp.getSignature().getName();
+        count(event, result);
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Count returned notes and their size. Export returns stream that is read after the operation,
+   * so its notes are not counted.
+   */
+  private static void count(NoteOperationEvent event, Object result) {
+    List<UserNoteDTO> notes;
+    if (result instanceof UserNotePageDTO page)
+      notes = page.notes();
+    else if (result instanceof NoteSyncDTO sync)
+      notes = sync.notes();
+    else if (result instanceof UserNoteDTO note)
+      notes = List.of(note);
+    else
+      return;
+
+    event.results = notes.size();
+    for (UserNoteDTO note : notes)
+      event.payload += utf8Length(note.note());
+  }
+
+  /**
+   * Number of bytes in UTF-8 encoding without encoding the text
+   */
+  static long utf8Length(String text) {
+    if (text == null)
+      return 0;
+
+    long length = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c < 0x80)
+        length++;
+      else if (c < 0x800 || Character.isSurrogate(c))
+        // Surrogate pair is 4 bytes
+        length += 2;
+      else
+        length += 3;
+    }
+    return length;
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.notes.service;
+
+import java.util.List;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.NoteCursor;
+import com.example.notes.repo.NoteSort;
+
+/**
+ * Single page of notes with cursor for the next page
+ */
+record NotePage(List<UserNote> notes, String next) {
+
+  /**
+   * Convert notes fetched with one extra record into page. The extra record only signals that there
+   * is next page, so it's dropped and cursor points to the last note in the page.
+   * 
+   * @param list Notes fetched with limit + 1
+   * @param sort Sort order used to fetch notes
+   * @param limit Page size
+   * @return NotePage
+   */
+  static NotePage of(List<UserNote> list, NoteSort sort, int limit) {
+    if (list.size() <= limit)
+      return new NotePage(list, null);
+
+    List<UserNote> page = List.copyOf(list.subList(0, limit));
+    return new NotePage(page, NoteCursor.of(sort, page.get(limit - 1)).encode());
+  }
+
+  /**
+   * Convert text search results fetched with one extra record into page. Relevance order has no
+   * stable key, so cursor is the offset of the next page.
+   * 
+   * @param list Notes fetched with size + 1
+   * @param offset Offset of the page
+   * @param size Page size returned by {@link #textSize}
+   * @return NotePage
+   */
+  static NotePage ofText(List<UserNote> list, int offset, int size) {
+    if (list.size() <= size)
+      return new NotePage(list, null);
+
+    return new NotePage(List.copyOf(list.subList(0, size)),
+        NoteCursor.ofOffset(offset + size).encode());
+  }
+
+  /**
+   * Offset of text search page
+   * 
+   * @param cursor Decoded cursor or null for the first page
+   * @return offset
+   */
+  static int offset(NoteCursor cursor) {
+    return cursor == null ? 0 : cursor.offset();
+  }
+
+  /**
+   * Size of text search page, so all pages together don't return more than max results
+   * 
+   * @param offset Offset of the page
+   * @param limit Page size
+   * @param config Search settings
+   * @return Page size or 0 if max results are already returned
+   */
+  static int textSize(int offset, int limit, NotesProperties.Search config) {
+    return Math.max(0, Math.min(limit, config.getMaxResults() - offset));
+  }
+
+  /**
+   * Page size for limit requested by client
+   * 
+   * @param limit Requested limit or null for default
+   * @param config Page settings
+   * @return Page size between 1 and max limit
+   */
+  static int size(Integer limit, NotesProperties.Page config) {
+    if (limit == null)
+      return config.getDefaultLimit();
+
+    return Math.max(1, Math.min(limit, config.getMaxLimit()));
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.notes.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import com.example.notes.config.BadRequestException;
+import com.example.notes.repo.NoteCursor;
+import com.example.notes.repo.NoteSort;
+import com.example.notes.repo.NoteView;
+import com.example.notes.repo.SyncToken;
+
+/**
+ * Parsing of request parameters shared by blocking and reactive services. Invalid values are
+ * reported as {@link BadRequestException}, so client gets 400 instead of server error.
+ */
+final class NoteParams {
+
+  // Languages supported by MongoDB text search, by name and by ISO 639-1 code
+  private static final Set<String> LANGUAGES = Set.of("none", "danish", "da", "dutch", "nl",
+      "english", "en", "finnish", "fi", "french", "fr", "german", "de", "hungarian", "hu",
+      "italian", "it", "norwegian", "nb", "portuguese", "pt", "romanian", "ro", "russian", "ru",
+      "spanish", "es", "swedish", "sv", "turkish", "tr");
+
+  private NoteParams() {}
+
+  /**
+   * Decode page cursor
+   * 
+   * @param source Source operation
+   * @param after Cursor returned with previous page or null for the first page
+   * @param sorts Sort orders the cursor may have
+   * @return cursor or null for the first page
+   * @throws BadRequestException if cursor is malformed or belongs to another kind of page
+   */
+  static NoteCursor cursor(String source, String after, NoteSort... sorts)
+      throws BadRequestException {
+    if (after == null)
+      return null;
+
+    NoteCursor cursor;
+    try {
+      cursor = NoteCursor.decode(after);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(source, e.getMessage());
+    }
+
+    if (!Arrays.asList(sorts).contains(cursor.sort()))
+      throw new BadRequestException(source, "Cursor doesn't belong to this page: " + after);
+
+    return cursor;
+  }
+
+  /**
+   * Sort order of the list page. Cursor keeps the order of the first page.
+   * 
+   * @param source Source operation
+   * @param sort Requested sort order
+   * @param cursor Decoded cursor or null for the first page
+   * @return sort order
+   * @throws BadRequestException if sort order is unknown or only valid for search
+   */
+  static NoteSort sort(String source, String sort, NoteCursor cursor) throws BadRequestException {
+    if (cursor != null)
+      return cursor.sort();
+
+    NoteSort order;
+    try {
+      order = NoteSort.of(sort);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(source, "Unknown sort: " + sort);
+    }
+
+    if (order == NoteSort.SCORE)
+      throw new BadRequestException(source, "Sort by score is only valid for search");
+
+    return order;
+  }
+
+  /**
+   * Parse view of the returned notes
+   * 
+   * @param source Source operation
+   * @param view Either "full" or "summary"
+   * @return view
+   * @throws BadRequestException if view is unknown
+   */
+  static NoteView view(String source, String view) throws BadRequestException {
+    try {
+      return NoteView.of(view);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(source, "Unknown view: " + view);
+    }
+  }
+
+  /**
+   * Decode sync token
+   * 
+   * @param source Source operation
+   * @param token Token returned by previous sync or null for full sync
+   * @return token or null for full sync
+   * @throws BadRequestException if token is malformed
+   */
+  static SyncToken token(String source, String token) throws BadRequestException {
+    try {
+      return token == null ? null : SyncToken.decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(source, e.getMessage());
+    }
+  }
+
+  /**
+   * Text search language
+   * 
+   * @param source Source operation
+   * @param language Requested language or null
+   * @param defaultLanguage Configured language used when none is requested
+   * @return language
+   * @throws BadRequestException if language isn't supported by text search
+   */
+  static String language(String source, String language, String defaultLanguage)
+      throws BadRequestException {
+    if (language == null)
+      return defaultLanguage;
+
+    String result = language.toLowerCase(Locale.ROOT);
+    if (!LANGUAGES.contains(result))
+      throw new BadRequestException(source, "Unsupported language: " + language);
+
+    return result;
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.notes.service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import com.example.notes.model.UserNote;
+
+/**
+ * Users that see the note, whose versions are incremented and who are notified when it changes
+ */
+final class NoteUsers {
+
+  private NoteUsers() {}
+
+  /**
+   * Owner and shared users of the note
+   * 
+   * @param un UserNote
+   * @param extra Users that don't see the note anymore but still have to be notified
+   * @return set of user names
+   */
+  static Set<String> of(UserNote un, String... extra) {
+    Set<String> users = new HashSet<>(un.getUsers());
+    users.add(un.getOwner());
+    users.addAll(Arrays.asList(extra));
+    return users;
+  }
+}
@@ -0,0 +1,411 @@
+package com.example.notes.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.config.NotesProperties.Search.Mode;
+import com.example.notes.config.PreconditionFailedException;
+import com.example.notes.config.SyncExpiredException;
+import com.example.notes.config.UserNotesException;
+import com.example.notes.dto.BulkOperationDTO;
+import com.example.notes.dto.BulkResultDTO;
+import com.example.notes.dto.NoteSyncDTO;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNotePageDTO;
+import com.example.notes.model.NoteTombstone;
+import com.example.notes.model.UserNote;
+import com.example.notes.model.UserVersion;
+import com.example.notes.ratelimit.KeyedRateLimit.Key;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.ratelimit.ReactiveKeyedRateLimiter;
+import com.example.notes.repo.NoteCursor;
+import com.example.notes.repo.NoteSort;
+import com.example.notes.repo.NoteView;
+import com.example.notes.repo.ReactiveNoteTombstoneRepo;
+import com.example.notes.repo.ReactiveUserNoteRepo;
+import com.example.notes.repo.ReactiveUserVersionRepo;
+import com.example.notes.repo.SyncToken;
+import com.example.notes.service.NoteChangedEvent.Type;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * UserNote Service for reactive mode. Runs the same queries and writes as {@link UserNoteService}
+ * with reactive repositories, so no thread waits for the database. Notes are read from the database
+ * without {@link UserNoteCache} since cache loaders block. Every call takes a permit from "api"
+ * rate limiter of the user on subscription.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserNoteService {
+
+  private static Logger LOG = LoggerFactory.getLogger(ReactiveUserNoteService.class);
+
+  @Autowired
+  private ReactiveUserNoteRepo unRepo;
+
+  @Autowired
+  private ReactiveUserVersionRepo versionRepo;
+
+  @Autowired
+  private ReactiveNoteTombstoneRepo tombstoneRepo;
+
+  @Autowired
+  private UserNoteBulkService bulkService;
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private ReactiveKeyedRateLimiter limiter;
+
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
+  @Autowired
+  private UserNoteMetrics metrics;
+
+  /**
+   * Get single page of notes for given user where it's set to owner or included into user's list
+   * 
+   * @param name User Name
+   * @param sort Sort order, ignored when "after" cursor is set
+   * @param after Cursor returned with previous page or null for the first page
+   * @param limit Max number of notes in the page or null for default
+   * @param view Either "full" or "summary" with note text cut to preview
+   * @return page of notes for given user
+   */
+  public Mono<UserNotePageDTO> findAll(String name, String sort, String after, Integer limit,
+      String view) {
+    LOG.info("Searching all notes for user: {}", name);
+
+    return defer(() -> {
+      NoteCursor cursor = NoteParams.cursor("findAll", after, NoteSort.ID, NoteSort.UPDATED);
+      NoteSort order = NoteParams.sort("findAll", sort, cursor);
+      NoteView fields = NoteParams.view("findAll", view);
+      int size = NotePage.size(limit, props.getPage());
+      return unRepo.findAllForUser(name, order, cursor, size + 1, fields).collectList()
+          .map(list -> mapUserNotes(NotePage.of(list, order, size)))
+          .doOnNext(page -> metrics.results("findAll", page.notes()));
+    }).onErrorMap(e -> error("findAll", e))
+        .transform(limiter.mono("api", "findAll", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Stream all notes for given user where it's set to owner or included into user's list. Notes are
+   * requested from MongoDB cursor as fast as subscriber consumes them.
+   * 
+   * @param name User Name
+   * @return notes for given user
+   */
+  public Flux<UserNoteDTO> export(String name) {
+    LOG.info("Exporting all notes for user: {}", name);
+
+    return unRepo.streamAllForUser(name).map(this::mapUserNote)
+        .onErrorMap(e -> error("export", e))
+        .transform(limiter.flux("api", "export", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Create new note for given user
+   * 
+   * @param name Owner Id
+   * @param text UserNote text
+   * @return new UserNoteDTO
+   */
+  public Mono<UserNoteDTO> add(String name, String text) {
+    LOG.info("Adding new notes for user: {}", name);
+
+    // Recorded on subscription, so rejected calls aren't counted
+    return unRepo.save(new UserNote(name, text))
+        .doOnSubscribe(s -> metrics.noteSize("add", text))
+        .flatMap(un -> written(Type.ADD, un.getId(), Set.of(name)).thenReturn(mapUserNote(un)))
+        .onErrorMap(e -> error("add", e))
+        .transform(limiter.mono("api", "add", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Find existing note for given user by id where user has access either as owner or by added as
+   * shared user
+   * 
+   * @param name User Name
+   * @param id Note Id
+   * @return existing UserNote
+   */
+  public Mono<UserNoteDTO> find(String name, String id) {
+    LOG.info("Searching for any existing note by id: {} for user: {}", id, name);
+
+    return unRepo.findByOwnerAndIdOrUsersAndId(name, id)
+        .switchIfEmpty(Mono.error(() -> notFound(name, id))).map(this::mapUserNote)
+        .onErrorMap(e -> error("find", e))
+        .transform(limiter.mono("api", "find", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Update existing note for given user by id if note has expected version
+   * 
+   * @param name Owner Id
+   * @param dto UserNoteDTO
+   * @param version Expected version or null to update any version
+   * @return Updated UserNoteDTO or {@link PreconditionFailedException} if note has different
+   *         version
+   */
+  public Mono<UserNoteDTO> update(String name, UserNoteDTO dto, Long version) {
+    LOG.info("Update existing notes by id: {} for user: {}", dto.id(), name);
+
+    return unRepo.updateNote(name, dto.id(), dto.note(), version)
+        .doOnSubscribe(s -> metrics.noteSize("update", dto.note()))
+        .switchIfEmpty(Mono.defer(() -> notUpdated(name, dto.id(), version)))
+        .flatMap(un -> written(Type.UPDATE, un.getId(), NoteUsers.of(un))
+            .thenReturn(mapUserNote(un)))
+        .onErrorMap(e -> error("update", e))
+        .transform(limiter.mono("api", "update", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Delete record for user by id
+   * 
+   * @param name Owner Id
+   * @param id Note Id
+   * @return completion
+   */
+  public Mono<Void> delete(String name, String id) {
+    LOG.info("Delete existing notes by id: {} for user: {}", id, name);
+
+    return unRepo.deleteNote(name, id).switchIfEmpty(Mono.error(() -> notFound(name, id)))
+        .flatMap(un -> tombstone(id, NoteUsers.of(un))
+            .then(written(Type.DELETE, id, NoteUsers.of(un))))
+        .onErrorMap(e -> error("delete", e))
+        .transform(limiter.mono("api", "delete", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Share note with another user
+   * 
+   * @param name Owner Id
+   * @param noteId Note Id
+   * @param userId User Id to share with
+   * @return completion
+   */
+  public Mono<Void> share(String name, String noteId, String userId) {
+    LOG.info("Share existing notes by id: {} for user: {} with user id: {}", noteId, name, userId);
+
+    return unRepo.shareNote(name, noteId, userId)
+        .switchIfEmpty(Mono.error(() -> notFound(name, noteId)))
+        .flatMap(un -> written(Type.SHARE, noteId, NoteUsers.of(un)))
+        .onErrorMap(e -> error("share", e))
+        .transform(limiter.mono("api", "share", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Stop sharing note with another user
+   * 
+   * @param name Owner Id
+   * @param noteId Note Id
+   * @param userId User Id to stop sharing with
+   * @return completion
+   */
+  public Mono<Void> unshare(String name, String noteId, String userId) {
+    LOG.info("Unshare existing notes by id: {} for user: {} with user id: {}", noteId, name,
+        userId);
+
+    return unRepo.unshareNote(name, noteId, userId)
+        .switchIfEmpty(Mono.error(() -> notFound(name, noteId)))
+        .flatMap(un -> tombstone(noteId, List.of(userId))
+            .then(written(Type.UNSHARE, noteId, NoteUsers.of(un, userId))))
+        .onErrorMap(e -> error("unshare", e))
+        .transform(limiter.mono("api", "unshare", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Execute batch of note operations. Bulk write has no reactive equivalent with per operation
+   * results, so batch runs on bounded elastic scheduler with {@link UserNoteBulkService} which
+   * charges "api" rate limiter by size of the batch.
+   * 
+   * @param name Owner Id
+   * @param ops Operations
+   * @return Result for each operation in the same order
+   */
+  public Mono<List<BulkResultDTO>> bulk(String name, List<BulkOperationDTO> ops) {
+    return Mono.fromCallable(() -> bulkService.execute(name, ops))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  /**
+   * Get notes created, updated, shared, unshared or deleted since given sync token
+   * 
+   * @param name User Name
+   * @param token Token returned by previous sync or null for full sync
+   * @param limit Max number of changed notes or null for default
+   * @return changes and token for the next sync or {@link SyncExpiredException} if token is older
+   *         than tombstone retention
+   */
+  public Mono<NoteSyncDTO> sync(String name, String token, Integer limit) {
+    LOG.info("Sync notes for user: {}", name);
+
+    return defer(() -> {
+      Instant now = Instant.now();
+      Instant upTo = SyncPage.upTo(now, props.getSync());
+      SyncToken after = NoteParams.token("sync", token);
+      SyncPage.checkExpired(name, after, now, props.getSync());
+
+      int size = NotePage.size(limit, props.getPage());
+      return unRepo.findChanged(name, after, upTo, size + 1).collectList().flatMap(list -> {
+        SyncPage page = SyncPage.of(list, after, upTo, size);
+
+        // Client without token has nothing to delete
+        SyncPage.Window window = page.deleted();
+        Mono<List<String>> deleted = window == null ? Mono.just(List.of())
+            : tombstoneRepo.findDeleted(name, window.from(), window.to())
+                .map(NoteTombstone::getNoteId).distinct().collectList();
+        metrics.results("sync", page.notes());
+        return deleted.map(d -> new NoteSyncDTO(mapUserNotes(page.notes()), d,
+            page.next().encode(), page.more()));
+      });
+    }).onErrorMap(e -> error("sync", e))
+        .transform(limiter.mono("api", "sync", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Get single page of notes that match query for given user
+   * 
+   * @param name User Name
+   * @param query Search Query
+   * @param language Language for stemming or null for default
+   * @param after Cursor returned with previous page or null for the first page
+   * @param limit Max number of notes in the page or null for default
+   * @param view Either "full" or "summary" with note text cut to preview
+   * @return page of notes
+   */
+  public Mono<UserNotePageDTO> search(String name, String query, String language, String after,
+      Integer limit, String view) {
+    LOG.info("Searching for query: [{}] for user: {}", query, name);
+
+    return defer(() -> {
+      boolean regex = props.getSearch().getMode() == Mode.REGEX;
+      NoteCursor cursor =
+          NoteParams.cursor("search", after, regex ? NoteSort.ID : NoteSort.SCORE);
+      NoteView fields = NoteParams.view("search", view);
+      String lang = NoteParams.language("search", language, props.getSearch().getLanguage());
+      int size = NotePage.size(limit, props.getPage());
+      return regex
+          ? unRepo.findByQuery(name, query, cursor, size + 1, fields).collectList()
+              .map(list -> mapUserNotes(NotePage.of(list, NoteSort.ID, size)))
+          : searchText(name, query, lang, cursor, size, fields);
+    }).doOnNext(page -> metrics.results("search", page.notes())).onErrorMap(e -> error("search", e))
+        .transform(limiter.mono("api", "search", Key.PRINCIPAL, name));
+  }
+
+  /**
+   * Get ETag for all notes visible to given user. Not rate limited as in
+   * {@link UserVersionService}.
+   * 
+   * @param name User Name
+   * @return ETag
+   */
+  public Mono<String> listTag(String name) {
+    return versionRepo.findById(name).map(UserVersion::getVersion).defaultIfEmpty(0L)
+        .map(UserVersionService::tag).onErrorMap(e -> error("version", e));
+  }
+
+  /**
+   * Get ETag for single note where user has access either as owner or as shared user
+   * 
+   * @param name User Name
+   * @param id Note Id
+   * @return ETag or empty if note is not found
+   */
+  public Mono<String> noteTag(String name, String id) {
+    return unRepo.findVersionByOwnerAndIdOrUsersAndId(name, id)
+        .map(un -> UserVersionService.tag(un.getVersion())).onErrorMap(e -> error("version", e));
+  }
+
+  /**
+   * Increment versions of users that see the written note and notify them. Versions are
+   * incremented after the note is written, so ETag read before the write is never returned with
+   * old content.
+   */
+  private Mono<Void> written(Type type, String id, Set<String> users) {
+    return versionRepo.increment(users).onErrorMap(e -> error("version", e))
+        .then(Mono.fromRunnable(
+            () -> publisher.publishEvent(new NoteChangedEvent(type, id, users))));
+  }
+
+  private Mono<UserNote> notUpdated(String name, String id, Long version) {
+    Mono<Boolean> exists = version == null ? Mono.just(false) : unRepo.existsByOwnerAndId(name, id);
+    return exists.flatMap(found -> Mono.error(found
+        ? new PreconditionFailedException("update",
+            "Note with id: " + id + " doesn't have version: " + version)
+        : notFound(name, id)));
+  }
+
+  private Mono<Void> tombstone(String noteId, Collection<String> users) {
+    return tombstoneRepo.insert(NoteTombstone.of(noteId, users, props.getSync().getRetention()))
+        .onErrorMap(e -> error("tombstone", e)).then();
+  }
+
+  private Mono<UserNotePageDTO> searchText(String name, String query, String language,
+      NoteCursor cursor, int limit, NoteView view) {
+    int offset = NotePage.offset(cursor);
+    int size = NotePage.textSize(offset, limit, props.getSearch());
+    if (size <= 0)
+      return Mono.just(new UserNotePageDTO(List.of(), null));
+
+    return unRepo.findByText(name, query, language, offset, size + 1, view).collectList()
+        .map(list -> mapUserNotes(NotePage.ofText(list, offset, size)));
+  }
+
+  /**
+   * Same as {@link Mono#defer} for suppliers that throw checked exceptions like invalid request
+   * parameters
+   */
+  private static <T> Mono<T> defer(Callable<Mono<T>> supplier) {
+    return Mono.defer(() -> {
+      try {
+        return supplier.call();
+      } catch (Exception e) {
+        return Mono.error(e);
+      }
+    });
+  }
+
+  private static UserNotesException notFound(String name, String id) {
+    return new UserNotesException("find", "Can't find note with id: " + id + " for user: " + name);
+  }
+
+  /**
+   * Wrap unexpected errors into UserNotesException with given source. Errors that are already
+   * mapped to response status are passed as is.
+   */
+  private static Throwable error(String source, Throwable e) {
+    if (e instanceof UserNotesException || e instanceof RateLimitExceededException
+        || !(e instanceof Exception ex))
+      return e;
+
+    return new UserNotesException(source, ex);
+  }
+
+  private UserNoteDTO mapUserNote(UserNote un) {
+    return new UserNoteDTO(un.getId(), un.getNote(), un.getVersion());
+  }
+
+  private List<UserNoteDTO> mapUserNotes(Collection<UserNote> list) {
+    return list.stream().map(un -> new UserNoteDTO(un.getId(), un.getNote())).toList();
+  }
+
+  private UserNotePageDTO mapUserNotes(NotePage page) {
+    return new UserNotePageDTO(mapUserNotes(page.notes()), page.next());
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.notes.service;
+
+import java.time.Instant;
+import java.util.List;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.config.SyncExpiredException;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.SyncToken;
+
+/**
+ * Single page of changed notes with token for the next sync. Shared by blocking and reactive
+ * services, so they only fetch notes and tombstones.
+ */
+record SyncPage(List<UserNote> notes, SyncToken after, SyncToken next, boolean more) {
+
+  /**
+   * Time window of tombstones read together with the page
+   */
+  record Window(Instant from, Instant to) {}
+
+  /**
+   * Changes of the last few seconds are held back until writes in flight are committed
+   * 
+   * @param now Current time
+   * @param config Sync settings
+   * @return time up to which changes are returned
+   */
+  static Instant upTo(Instant now, NotesProperties.Sync config) {
+    return now.minus(config.getLag());
+  }
+
+  /**
+   * Check that tombstones the token relies on are still kept
+   * 
+   * @param name User Name
+   * @param after Token returned by previous sync or null for full sync
+   * @param now Current time
+   * @param config Sync settings
+   * @throws SyncExpiredException if token is older than tombstone retention
+   */
+  static void checkExpired(String name, SyncToken after, Instant now, NotesProperties.Sync config)
+      throws SyncExpiredException {
+    if (after != null && after.issued().isBefore(now.minus(config.getRetention())))
+      throw new SyncExpiredException("sync", "Sync token is expired for user: " + name);
+  }
+
+  /**
+   * Convert changed notes fetched with one extra record into page. Token of the full page points to
+   * its last note and keeps the time sync started, otherwise client is up to date.
+   * 
+   * @param list Changed notes fetched with limit + 1
+   * @param after Token returned by previous sync or null for full sync
+   * @param upTo Time up to which changes are returned
+   * @param limit Page size
+   * @return SyncPage
+   */
+  static SyncPage of(List<UserNote> list, SyncToken after, Instant upTo, int limit) {
+    if (list.size() <= limit)
+      return new SyncPage(list, after, new SyncToken(upTo, null, upTo), false);
+
+    List<UserNote> page = List.copyOf(list.subList(0, limit));
+    UserNote last = page.get(limit - 1);
+    Instant issued = after == null ? upTo : after.issued();
+    return new SyncPage(page, after, new SyncToken(last.getUpdated(), last.getId(), issued), true);
+  }
+
+  /**
+   * Tombstones of notes deleted after previous sync up to the end of this page
+   * 
+   * @return Window or null if client without token has nothing to delete
+   */
+  Window deleted() {
+    return after == null ? null : new Window(after.updated(), next.updated());
+  }
+}
@@ -0,0 +1,7 @@
+package com.example.notes.service;
+
+/**
+ * Published when user is created or its credentials changed, so cached user data can be evicted
+ */
+public record UserChangedEvent(String name) {
+}
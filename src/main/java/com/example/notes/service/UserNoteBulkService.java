@@ -0,0 +1,265 @@
+package com.example.notes.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.config.UserNotesException;
+import com.example.notes.dto.BulkOperationDTO;
+import com.example.notes.dto.BulkResultDTO;
+import com.example.notes.model.NoteTombstone;
+import com.example.notes.model.UserNote;
+import com.example.notes.ratelimit.KeyedRateLimit;
+import com.example.notes.ratelimit.KeyedRateLimiter;
+import com.example.notes.repo.NoteCompression;
+import com.example.notes.repo.NoteTombstoneRepo;
+import com.example.notes.repo.UserNoteRepo;
+import com.example.notes.service.NoteChangedEvent.Type;
+import com.mongodb.bulk.BulkWriteError;
+
+/**
+ * Bulk UserNote Service. Whole batch is validated with one ownership query and written with one
+ * unordered bulkWrite, so batch of N operations costs two round trips instead of 2N. Rate limiter
+ * is called directly since batch is charged by number of operations instead of one permit.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Service
+public class UserNoteBulkService {
+
+  private static Logger LOG = LoggerFactory.getLogger(UserNoteBulkService.class);
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private NoteCompression compression;
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private UserNoteCache cache;
+
+  @Autowired
+  private KeyedRateLimiter limiter;
+
+  @Autowired
+  private UserVersionService versions;
+
+  @Autowired
+  private NoteTombstoneRepo tombstoneRepo;
+
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
+  /**
+   * Execute batch of operations for given user. Operations are independent, so failure of one
+   * doesn't stop others and order of execution is not guaranteed.
+   * 
+   * @param name Owner Id
+   * @param ops List of operations
+   * @return Result for each operation in the same order as requested
+   * 
+   * @throws UserNotesException if batch is too large or can't be executed at all
+   */
+  public List<BulkResultDTO> execute(String name, List<BulkOperationDTO> ops)
+      throws UserNotesException {
+    LOG.info("Executing {} bulk operations for user: {}", ops.size(), name);
+
+    int max = props.getBulk().getMaxOperations();
+    if (ops.size() > max)
+      throw new UserNotesException("bulk",
+          "Too many operations: " + ops.size() + ", max allowed: " + max);
+
+    int perPermit = props.getBulk().getOperationsPerPermit();
+    limiter.acquirePermission("api", "bulk", KeyedRateLimit.Key.PRINCIPAL, name,
+        (ops.size() + perPermit - 1) / perPermit);
+
+    BulkResultDTO[] results = new BulkResultDTO[ops.size()];
+    Map<String, UserNote> owned;
+    try {
+      owned = findOwned(name, ops);
+    } catch (Exception e) {
+      throw new UserNotesException("bulk", e);
+    }
+
+    // Index of the operation for each write model
+    List<Integer> writes = new ArrayList<>();
+    Set<String> shared = new HashSet<>();
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, UserNote.class);
+    Instant now = Instant.now();
+    for (int i = 0; i < ops.size(); i++) {
+      BulkOperationDTO op = ops.get(i);
+      String error = validate(op);
+      if (error != null) {
+        results[i] = new BulkResultDTO(i, op.id(), 400, error);
+        continue;
+      }
+
+      if (op.type() != BulkOperationDTO.Type.CREATE && !owned.containsKey(op.id())) {
+        results[i] = new BulkResultDTO(i, op.id(), 404,
+            "Can't find note with id: " + op.id() + " for user: " + name);
+        continue;
+      }
+
+      String id = op.id();
+      switch (op.type()) {
+        case CREATE -> {
+          // Id is assigned here since bulk insert doesn't return generated ids
+          UserNote un = new UserNote(name, op.note());
+          id = new ObjectId().toHexString();
+          un.setId(id);
+          bulk.insert(un);
+        }
+        case UPDATE -> bulk.updateOne(byOwner(name, id),
+            compression.update(new Update(), op.note()).set("updated", now).inc("version", 1));
+        case DELETE -> bulk.remove(byOwner(name, id));
+        case SHARE -> {
+          bulk.updateOne(byOwner(name, id),
+              new Update().addToSet("users", op.userId()).set("updated", now).inc("version", 1));
+          shared.add(op.userId());
+        }
+      }
+
+      results[i] = new BulkResultDTO(i, id, 200, null);
+      writes.add(i);
+    }
+
+    // Some writes could be applied even when bulk fails, so cache and versions are always updated
+    Exception failure = null;
+    try {
+      if (!writes.isEmpty())
+        bulk.execute();
+    } catch (BulkOperationException e) {
+      for (BulkWriteError error : e.getErrors()) {
+        int i = writes.get(error.getIndex());
+        results[i] = new BulkResultDTO(i, results[i].id(), 500, error.getMessage());
+      }
+    } catch (Exception e) {
+      failure = e;
+    }
+
+    if (!writes.isEmpty()) {
+      tombstone(ops, results, owned);
+      evict(name, owned.values(), shared);
+    }
+
+    if (failure != null)
+      throw new UserNotesException("bulk", failure);
+
+    publish(name, ops, results, owned);
+
+    LOG.debug("Executed {} bulk writes out of {} operations for user: {}", writes.size(),
+        ops.size(), name);
+    return Arrays.asList(results);
+  }
+
+  private Map<String, UserNote> findOwned(String name, List<BulkOperationDTO> ops) {
+    Set<String> ids = ops.stream()
+        .filter(op -> op.type() != BulkOperationDTO.Type.CREATE && op.id() != null)
+        .map(BulkOperationDTO::id).collect(Collectors.toSet());
+    if (ids.isEmpty())
+      return Map.of();
+
+    return unRepo.findByOwnerAndIdIn(name, ids).stream()
+        .collect(Collectors.toMap(UserNote::getId, Function.identity()));
+  }
+
+  private static String validate(BulkOperationDTO op) {
+    if (op.type() != BulkOperationDTO.Type.CREATE
+        && (op.id() == null || !ObjectId.isValid(op.id())))
+      return "Note id is missing or invalid";
+
+    return switch (op.type()) {
+      case CREATE, UPDATE -> op.note() == null || op.note().isBlank() ? "Note cannot be empty"
+          : null;
+      case SHARE -> op.userId() == null || op.userId().isBlank() ? "User id cannot be empty" : null;
+      case DELETE -> null;
+    };
+  }
+
+  private static Query byOwner(String name, String id) {
+    return new Query(where("id").is(id).and("owner").is(name));
+  }
+
+  private void publish(String name, List<BulkOperationDTO> ops, BulkResultDTO[] results,
+      Map<String, UserNote> owned) {
+    for (int i = 0; i < ops.size(); i++) {
+      BulkOperationDTO op = ops.get(i);
+      if (results[i].status() != 200)
+        continue;
+
+      if (op.type() == BulkOperationDTO.Type.CREATE) {
+        publisher.publishEvent(new NoteChangedEvent(Type.ADD, results[i].id(), Set.of(name)));
+        continue;
+      }
+
+      UserNote un = owned.get(op.id());
+      Set<String> users = new HashSet<>(un.getUsers());
+      users.add(un.getOwner());
+      if (op.type() == BulkOperationDTO.Type.SHARE)
+        users.add(op.userId());
+      publisher.publishEvent(
+          new NoteChangedEvent(Type.valueOf(op.type().name()), un.getId(), users));
+    }
+  }
+
+  private void tombstone(List<BulkOperationDTO> ops, BulkResultDTO[] results,
+      Map<String, UserNote> owned) throws UserNotesException {
+    List<NoteTombstone> tombstones = new ArrayList<>();
+    for (int i = 0; i < ops.size(); i++) {
+      if (ops.get(i).type() != BulkOperationDTO.Type.DELETE || results[i].status() != 200)
+        continue;
+
+      UserNote un = owned.get(ops.get(i).id());
+      Set<String> users = new HashSet<>(un.getUsers());
+      users.add(un.getOwner());
+      tombstones.addAll(NoteTombstone.of(un.getId(), users, props.getSync().getRetention()));
+    }
+
+    try {
+      if (!tombstones.isEmpty())
+        tombstoneRepo.insert(tombstones);
+    } catch (Exception e) {
+      throw new UserNotesException("tombstone", e);
+    }
+  }
+
+  private void evict(String name, Iterable<UserNote> notes, Set<String> shared)
+      throws UserNotesException {
+    Set<String> users = new HashSet<>(shared);
+    users.add(name);
+    cache.evictPages(name);
+    for (UserNote un : notes) {
+      cache.evict(un);
+      users.addAll(un.getUsers());
+    }
+    for (String user : shared)
+      cache.evictPages(user);
+
+    versions.increment(users);
+  }
+}
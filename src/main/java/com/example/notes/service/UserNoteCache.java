@@ -0,0 +1,181 @@
+package com.example.notes.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.NoteView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Two level cache for UserNoteService. The first level keeps list of note ids for each page
+ * requested by user and the second level keeps notes by id. Pages are read with projection, so
+ * their notes are kept by id separately for each view and never returned by {@link #getNote}.
+ * Cached notes are shared between threads and must not be modified.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class UserNoteCache {
+
+  // Max number of different pages cached for single user
+  private static final int MAX_PAGES_PER_USER = 32;
+
+  // Number of generation counters, keys share a counter only on hash collision
+  private static final int STRIPES = 1024;
+
+  /**
+   * Note ids for cached page
+   */
+  private record Page(List<String> ids, String next) {
+  }
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  // Notes by id
+  private Cache<String, UserNote> notes;
+
+  // Notes of cached pages by view and id
+  private final Map<NoteView, Cache<String, UserNote>> listed = new EnumMap<>(NoteView.class);
+
+  // Pages by user name and page key
+  private Cache<String, ConcurrentMap<String, Page>> pages;
+
+  // Incremented on eviction of the note by id, so a load that raced with the write isn't cached
+  private final AtomicLongArray noteGenerations = new AtomicLongArray(STRIPES);
+
+  // Incremented on eviction of the user's pages, so a page load that raced with the write isn't
+  // cached. Every write evicts pages of all users that see the note.
+  private final AtomicLongArray userGenerations = new AtomicLongArray(STRIPES);
+
+  @PostConstruct
+  public void init() {
+    NotesProperties.Cache config = props.getCache();
+    notes = Caffeine.newBuilder().maximumSize(config.getMaxNotes())
+        .expireAfterWrite(config.getTtl()).recordStats().build();
+    pages = Caffeine.newBuilder().maximumSize(config.getMaxUsers())
+        .expireAfterWrite(config.getTtl()).recordStats().build();
+
+    CaffeineCacheMetrics.monitor(registry, notes, "notes.byId");
+    for (NoteView view : NoteView.values()) {
+      Cache<String, UserNote> cache = Caffeine.newBuilder().maximumSize(config.getMaxNotes())
+          .expireAfterWrite(config.getTtl()).recordStats().build();
+      listed.put(view, cache);
+      CaffeineCacheMetrics.monitor(registry, cache, "notes.listed", "view",
+          view.name().toLowerCase(Locale.ROOT));
+    }
+    CaffeineCacheMetrics.monitor(registry, pages, "notes.pages");
+  }
+
+  /**
+   * Get note by id from cache or load it. Note is loaded outside of cache compute, so database call
+   * doesn't hold map bin lock which would pin virtual thread to its carrier.
+   * 
+   * @param id Note Id
+   * @param loader Loads note from database, can return null
+   * @return UserNote or null
+   */
+  public UserNote getNote(String id, Supplier<UserNote> loader) {
+    if (!props.getCache().isEnabled())
+      return loader.get();
+
+    UserNote un = notes.getIfPresent(id);
+    if (un != null)
+      return un;
+
+    int stripe = stripe(id);
+    long gen = noteGenerations.get(stripe);
+    un = loader.get();
+    if (un != null && gen == noteGenerations.get(stripe))
+      notes.put(id, un);
+
+    return un;
+  }
+
+  /**
+   * Get user's page from cache or load it. Page is served from cache only when all its notes are
+   * still cached, otherwise whole page is loaded again with single query.
+   * 
+   * @param user User Name
+   * @param view Fields of page notes
+   * @param key Unique key of the page for given user
+   * @param loader Loads page from database
+   * @return NotePage
+   */
+  NotePage getPage(String user, NoteView view, String key, Supplier<NotePage> loader) {
+    if (!props.getCache().isEnabled())
+      return loader.get();
+
+    // Take user's pages before loading, so page loaded after eviction goes to detached map
+    ConcurrentMap<String, Page> userPages = pages.get(user, k -> new ConcurrentHashMap<>());
+    Cache<String, UserNote> viewNotes = listed.get(view);
+    Page page = userPages.get(key);
+    if (page != null) {
+      Map<String, UserNote> found = viewNotes.getAllPresent(page.ids());
+      if (found.size() == page.ids().size())
+        return new NotePage(page.ids().stream().map(found::get).toList(), page.next());
+    }
+
+    int stripe = stripe(user);
+    long gen = userGenerations.get(stripe);
+    NotePage result = loader.get();
+    if (userPages.size() >= MAX_PAGES_PER_USER)
+      userPages.clear();
+
+    List<String> ids = new ArrayList<>(result.notes().size());
+    for (UserNote un : result.notes())
+      ids.add(un.getId());
+    userPages.put(key, new Page(ids, result.next()));
+
+    if (gen == userGenerations.get(stripe))
+      result.notes().forEach(un -> viewNotes.put(un.getId(), un));
+
+    return result;
+  }
+
+  /**
+   * Evict note and pages of the owner and all shared users
+   * 
+   * @param un UserNote
+   */
+  public void evict(UserNote un) {
+    noteGenerations.incrementAndGet(stripe(un.getId()));
+    userGenerations.incrementAndGet(stripe(un.getOwner()));
+    un.getUsers().forEach(user -> userGenerations.incrementAndGet(stripe(user)));
+    notes.invalidate(un.getId());
+    listed.values().forEach(cache -> cache.invalidate(un.getId()));
+    pages.invalidate(un.getOwner());
+    pages.invalidateAll(un.getUsers());
+  }
+
+  /**
+   * Evict pages of given user
+   * 
+   * @param user User Name
+   */
+  public void evictPages(String user) {
+    userGenerations.incrementAndGet(stripe(user));
+    pages.invalidate(user);
+  }
+
+  private static int stripe(String key) {
+    return Math.floorMod(key.hashCode(), STRIPES);
+  }
+}
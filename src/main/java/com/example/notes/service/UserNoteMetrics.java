@@ -0,0 +1,55 @@
+package com.example.notes.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Distribution summaries of note operations shared by servlet and reactive services. The only tag
+ * is operation name, so number of time series doesn't grow with users or notes.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+public class UserNoteMetrics {
+
+  @Autowired
+  private MeterRegistry registry;
+
+  // Summaries by operation, registered on first use
+  private final Map<String, DistributionSummary> results = new ConcurrentHashMap<>();
+
+  private final Map<String, DistributionSummary> sizes = new ConcurrentHashMap<>();
+
+  /**
+   * Record number of notes returned by operation
+   * 
+   * @param operation Operation name
+   * @param notes Returned notes
+   */
+  public void results(String operation, Collection<?> notes) {
+    results.computeIfAbsent(operation, op -> summary("notes.results", "notes", op))
+        .record(notes.size());
+  }
+
+  /**
+   * Record length of note text written by operation
+   * 
+   * @param operation Operation name
+   * @param note Note text
+   */
+  public void noteSize(String operation, String note) {
+    if (note != null)
+      sizes.computeIfAbsent(operation, op -> summary("notes.size", "characters", op))
+          .record(note.length());
+  }
+
+  private DistributionSummary summary(String name, String unit, String operation) {
+    return DistributionSummary.builder(name).baseUnit(unit).tag("operation", operation)
+        .publishPercentileHistogram().register(registry);
+  }
+}
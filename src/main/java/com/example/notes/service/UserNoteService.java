@@ -1,20 +1,35 @@
 package com.example.notes.service;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.config.NotesProperties.Search.Mode;
+import com.example.notes.config.PreconditionFailedException;
+import com.example.notes.config.SyncExpiredException;
 import com.example.notes.config.UserNotesException;
+import com.example.notes.dto.NoteSyncDTO;
 import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNotePageDTO;
+import com.example.notes.model.NoteTombstone;
 import com.example.notes.model.UserNote;
+import com.example.notes.ratelimit.KeyedRateLimit;
+import com.example.notes.repo.NoteCursor;
+import com.example.notes.repo.NoteSort;
+import com.example.notes.repo.NoteTombstoneRepo;
+import com.example.notes.repo.NoteView;
+import com.example.notes.repo.SyncToken;
 import com.example.notes.repo.UserNoteRepo;
-import io.github.resilience4j.ratelimiter.RateLimiter.EventPublisher;
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
-import jakarta.annotation.PostConstruct;
+import com.example.notes.service.NoteChangedEvent.Type;
+import io.micrometer.core.annotation.Timed;
 
 /**
  * UserNote Service
@@ -22,37 +37,85 @@ import jakarta.annotation.PostConstruct;
  * @author Igor Peonte <igor.144@gmail.com>
  */
 @Service
-@RateLimiter(name = "api")
+@KeyedRateLimit(name = "api")
+@Timed(value = "notes.service", histogram = true)
 public class UserNoteService {
 
   private static Logger LOG = LoggerFactory.getLogger(UserNoteService.class);
 
   @Autowired
-  private RateLimiterRegistry registry;
+  private UserNoteRepo unRepo;
 
   @Autowired
-  private UserNoteRepo unRepo;
+  private NotesProperties props;
+
+  @Autowired
+  private UserNoteCache cache;
+
+  @Autowired
+  private UserVersionService versions;
+
+  @Autowired
+  private NoteTombstoneRepo tombstoneRepo;
+
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
+  @Autowired
+  private UserNoteMetrics metrics;
 
   /**
-   * Get all notes for given user where it's set to owner or included into user's list
+   * Get single page of notes for given user where it's set to owner or included into user's list
    * 
    * @param name
-   * @return list of notes for given user
+   * @param sort Sort order, ignored when "after" cursor is set
+   * @param after Cursor returned with previous page or null for the first page
+   * @param limit Max number of notes in the page or null for default
+   * @param view Either "full" or "summary" with note text cut to preview
+   * @return page of notes for given user
    * 
    * @throws UserNotesException
    */
-  public List<UserNoteDTO> findAll(String name) throws UserNotesException {
+  public UserNotePageDTO findAll(String name, String sort, String after, Integer limit,
+      String view) throws UserNotesException {
     LOG.info("Searching all notes for user: {}", name);
 
+    NoteCursor cursor = NoteParams.cursor("findAll", after, NoteSort.ID, NoteSort.UPDATED);
+    NoteSort order = NoteParams.sort("findAll", sort, cursor);
+    NoteView fields = NoteParams.view("findAll", view);
     try {
-      List<UserNoteDTO> result = mapUserNotes(unRepo.findAllForUser(name));
-      LOG.debug("Found {} notes for user: {}", result.size(), name);
+      int size = NotePage.size(limit, props.getPage());
+      UserNotePageDTO result = mapUserNotes(
+          cache.getPage(name, fields, fields + ":" + order + ":" + after + ":" + size,
+              () -> NotePage.of(unRepo.findAllForUser(name, order, cursor, size + 1, fields),
+                  order, size)));
+      metrics.results("findAll", result.notes());
+      LOG.debug("Found {} notes for user: {}", result.notes().size(), name);
       return result;
     } catch (Exception e) {
       throw new UserNotesException("findAll", e);
     }
   }
 
+  /**
+   * Stream all notes for given user where it's set to owner or included into user's list. Notes are
+   * read from MongoDB cursor batch by batch so caller must close the stream when done.
+   * 
+   * @param name User Name
+   * @return stream of notes for given user
+   * 
+   * @throws UserNotesException
+   */
+  public Stream<UserNoteDTO> export(String name) throws UserNotesException {
+    LOG.info("Exporting all notes for user: {}", name);
+
+    try {
+      return unRepo.streamAllForUser(name).map(this::mapUserNote);
+    } catch (Exception e) {
+      throw new UserNotesException("export", e);
+    }
+  }
+
   /**
    * Create new note for given user
    * 
@@ -64,11 +127,15 @@ public class UserNoteService {
    */
   public UserNoteDTO add(String name, String text) throws UserNotesException {
     LOG.info("Adding new notes for user: {}", name);
+    metrics.noteSize("add", text);
 
     try {
       UserNote result = unRepo.save(new UserNote(name, text));
+      cache.evictPages(name);
+      versions.increment(result);
+      publisher.publishEvent(new NoteChangedEvent(Type.ADD, result.getId(), Set.of(name)));
       LOG.debug("Saved new note with id: {} for user: {}", result.getId(), name);
-      return new UserNoteDTO(result.getId(), text);
+      return mapUserNote(result);
     } catch (Exception e) {
       throw new UserNotesException("add", e);
     }
@@ -96,19 +163,44 @@ public class UserNoteService {
    * @throws UserNotesException
    */
   public UserNoteDTO update(String name, UserNoteDTO dto) throws UserNotesException {
-    LOG.info("Update existing notes by id: {} for user: {}", dto.id(), name);
+    return update(name, dto, null);
+  }
 
-    // Find existing note by id
-    UserNote un = findByOwner(name, dto.id());
-    un.setNote(dto.note());
+  /**
+   * Update existing note for given user by id if note has expected version
+   * 
+   * @param name Owner Id
+   * @param dto UserNoteDTO
+   * @param version Expected version or null to update any version
+   * @return Updated UserNoteDTO
+   * @throws PreconditionFailedException if note has different version
+   * @throws UserNotesException
+   */
+  public UserNoteDTO update(String name, UserNoteDTO dto, Long version)
+      throws UserNotesException {
+    LOG.info("Update existing notes by id: {} for user: {}", dto.id(), name);
+    metrics.noteSize("update", dto.note());
 
+    UserNote un;
+    boolean exists = false;
     try {
-      UserNote result = unRepo.save(un);
-      LOG.debug("Saved updated note with id: {} for user: {}", result.getId(), name);
-      return mapUserNote(un);
+      un = unRepo.updateNote(name, dto.id(), dto.note(), version);
+      if (un == null && version != null)
+        exists = unRepo.existsByOwnerAndId(name, dto.id());
     } catch (Exception e) {
       throw new UserNotesException("update", e);
     }
+
+    if (exists)
+      throw new PreconditionFailedException("update",
+          "Note with id: " + dto.id() + " doesn't have version: " + version);
+
+    checkFound(un, name, dto.id());
+    cache.evict(un);
+    versions.increment(un);
+    publisher.publishEvent(new NoteChangedEvent(Type.UPDATE, un.getId(), NoteUsers.of(un)));
+    LOG.debug("Saved updated note with id: {} for user: {}", un.getId(), name);
+    return mapUserNote(un);
   }
 
   /**
@@ -121,70 +213,165 @@ public class UserNoteService {
   public void delete(String name, String id) throws UserNotesException {
     LOG.info("Delete existing notes by id: {} for user: {}", id, name);
 
-    // Check if requested note exist and user is the owner
-    findByOwner(name, id);
-
+    UserNote un;
     try {
-      unRepo.deleteById(id);
+      un = unRepo.deleteNote(name, id);
     } catch (Exception e) {
       throw new UserNotesException("delete", e);
     }
-  }
 
+    checkFound(un, name, id);
+    tombstone(id, NoteUsers.of(un));
+    cache.evict(un);
+    versions.increment(un);
+    publisher.publishEvent(new NoteChangedEvent(Type.DELETE, id, NoteUsers.of(un)));
+  }
 
+  /**
+   * Share note with another user
+   * 
+   * @param name Owner Id
+   * @param noteId Note Id
+   * @param userId User Id to share with
+   * @throws UserNotesException
+   */
   public void share(String name, String noteId, String userId) throws UserNotesException {
     LOG.info("Share existing notes by id: {} for user: {} with user id: {}", noteId, name, userId);
 
-    // Find existing note by id
-    UserNote un = findByOwner(name, noteId);
-    un.addUser(userId);
-
+    UserNote un;
     try {
-      UserNote result = unRepo.save(un);
-      LOG.debug("Saved updated note after shared with user id: {} with id: {} for user: {}", userId,
-          result.getId(), name);
+      un = unRepo.shareNote(name, noteId, userId);
     } catch (Exception e) {
       throw new UserNotesException("share", e);
     }
 
+    checkFound(un, name, noteId);
+    cache.evict(un);
+    versions.increment(un);
+    publisher.publishEvent(new NoteChangedEvent(Type.SHARE, noteId, NoteUsers.of(un)));
+    LOG.debug("Saved updated note after shared with user id: {} with id: {} for user: {}", userId,
+        noteId, name);
   }
 
-  public List<UserNoteDTO> search(String name, String query) throws UserNotesException {
-    LOG.info("Searching for query: [{}] for user: {}", query, name);
-    List<UserNote> result;
+  /**
+   * Stop sharing note with another user
+   * 
+   * @param name Owner Id
+   * @param noteId Note Id
+   * @param userId User Id to stop sharing with
+   * @throws UserNotesException
+   */
+  public void unshare(String name, String noteId, String userId) throws UserNotesException {
+    LOG.info("Unshare existing notes by id: {} for user: {} with user id: {}", noteId, name,
+        userId);
 
+    UserNote un;
     try {
-      result = unRepo.findByQuery(name, query);
-      LOG.debug("Found {} records by query : [{}] for user: {}", result.size(), query, name);
-      return mapUserNotes(result);
+      un = unRepo.unshareNote(name, noteId, userId);
     } catch (Exception e) {
-      throw new UserNotesException("search", e);
+      throw new UserNotesException("unshare", e);
     }
+
+    checkFound(un, name, noteId);
+    tombstone(noteId, List.of(userId));
+    cache.evict(un);
+    cache.evictPages(userId);
+    versions.increment(NoteUsers.of(un, userId));
+    publisher.publishEvent(new NoteChangedEvent(Type.UNSHARE, noteId, NoteUsers.of(un, userId)));
   }
 
   /**
-   * Find existing note for given user by id where user is the owner
+   * Get notes created, updated, shared, unshared or deleted since given sync token. Notes are read
+   * in update time order from the same indexes as list pages and deleted notes from tombstones.
+   * Changes of the last few seconds are held back until writes in flight are committed.
    * 
-   * @param name Owner Id
-   * @param id Note Id
-   * @return existing UserNote
+   * @param name User Name
+   * @param token Token returned by previous sync or null for full sync
+   * @param limit Max number of changed notes or null for default
+   * @return changes and token for the next sync
+   * @throws SyncExpiredException if token is older than tombstone retention
+   * @throws UserNotesException
+   */
+  public NoteSyncDTO sync(String name, String token, Integer limit) throws UserNotesException {
+    LOG.info("Sync notes for user: {}", name);
+
+    Instant now = Instant.now();
+    Instant upTo = SyncPage.upTo(now, props.getSync());
+    SyncToken after = NoteParams.token("sync", token);
+    SyncPage.checkExpired(name, after, now, props.getSync());
+
+    try {
+      int size = NotePage.size(limit, props.getPage());
+      SyncPage page =
+          SyncPage.of(unRepo.findChanged(name, after, upTo, size + 1), after, upTo, size);
+
+      // Client without token has nothing to delete
+      SyncPage.Window window = page.deleted();
+      List<String> deleted = window == null ? List.of()
+          : tombstoneRepo.findDeleted(name, window.from(), window.to()).stream()
+              .map(NoteTombstone::getNoteId).distinct().toList();
+
+      metrics.results("sync", page.notes());
+      LOG.debug("Found {} changed and {} deleted notes for user: {}", page.notes().size(),
+          deleted.size(), name);
+      return new NoteSyncDTO(mapUserNotes(page.notes()), deleted, page.next().encode(),
+          page.more());
+    } catch (Exception e) {
+      throw new UserNotesException("sync", e);
+    }
+  }
+
+  /**
+   * Get single page of notes that match query for given user. Depending on configured search mode
+   * notes are either matched by words using text index and ordered by relevance or matched by
+   * substring and ordered by id.
+   * 
+   * @param name User Name
+   * @param query Search Query
+   * @param language Language for stemming or null for default
+   * @param after Cursor returned with previous page or null for the first page
+   * @param limit Max number of notes in the page or null for default
+   * @param view Either "full" or "summary" with note text cut to preview
+   * @return page of notes
    * 
    * @throws UserNotesException
    */
-  private UserNote findByOwner(String name, String id) throws UserNotesException {
-    LOG.info("Searching for specific existing note by owner id: {} for user: {}", id, name);
-    UserNote result;
+  public UserNotePageDTO search(String name, String query, String language, String after,
+      Integer limit, String view) throws UserNotesException {
+    LOG.info("Searching for query: [{}] for user: {}", query, name);
+
+    boolean regex = props.getSearch().getMode() == Mode.REGEX;
+    NoteCursor cursor =
+        NoteParams.cursor("search", after, regex ? NoteSort.ID : NoteSort.SCORE);
+    NoteView fields = NoteParams.view("search", view);
+    String lang = NoteParams.language("search", language, props.getSearch().getLanguage());
     try {
-      result = unRepo.findByOwnerAndId(name, id);
+      int size = NotePage.size(limit, props.getPage());
+      UserNotePageDTO result = regex
+          ? mapUserNotes(NotePage.of(unRepo.findByQuery(name, query, cursor, size + 1, fields),
+              NoteSort.ID, size))
+          : searchText(name, query, lang, cursor, size, fields);
+      metrics.results("search", result.notes());
+      LOG.debug("Found {} records by query : [{}] for user: {}", result.notes().size(), query,
+          name);
+      return result;
     } catch (Exception e) {
-      throw new UserNotesException("find", e);
+      throw new UserNotesException("search", e);
     }
+  }
 
-    if (result == null)
+  /**
+   * Check that conditional write matched the note. Null result means that either note doesn't
+   * exist or user is not the owner.
+   * 
+   * @param un Note returned by conditional write
+   * @param name Owner Id
+   * @param id Note Id
+   * @throws UserNotesException if note wasn't matched
+   */
+  private void checkFound(UserNote un, String name, String id) throws UserNotesException {
+    if (un == null)
       throw new UserNotesException("find", "Can't find note with id: " + id + " for user: " + name);
-
-    LOG.debug("Found note with id: {} for user: {}", id, name);
-    return result;
   }
 
   /**
@@ -201,11 +388,15 @@ public class UserNoteService {
     LOG.info("Searching for any existing note by id: {} for user: {}", id, name);
     UserNote result;
     try {
-      result = unRepo.findByOwnerAndIdOrUsersAndId(name, id);
+      result = cache.getNote(id, () -> unRepo.findByOwnerAndIdOrUsersAndId(name, id));
     } catch (Exception e) {
       throw new UserNotesException("find", e);
     }
 
+    // Cached note could be loaded by another user
+    if (result != null && !name.equals(result.getOwner()) && !result.getUsers().contains(name))
+      result = null;
+
     if (result == null)
       throw new UserNotesException("find", "Can't find note with id: " + id + " for user: " + name);
 
@@ -214,18 +405,35 @@ public class UserNoteService {
   }
 
 
+  private void tombstone(String noteId, Collection<String> users) throws UserNotesException {
+    try {
+      tombstoneRepo.insert(NoteTombstone.of(noteId, users, props.getSync().getRetention()));
+    } catch (Exception e) {
+      throw new UserNotesException("tombstone", e);
+    }
+  }
+
   private UserNoteDTO mapUserNote(UserNote un) {
-    return new UserNoteDTO(un.getId(), un.getNote());
+    return new UserNoteDTO(un.getId(), un.getNote(), un.getVersion());
   }
 
-  private List<UserNoteDTO> mapUserNotes(Collection<UserNote> list) {
+  static List<UserNoteDTO> mapUserNotes(Collection<UserNote> list) {
     return list.stream().map(un -> new UserNoteDTO(un.getId(), un.getNote()))
         .collect(Collectors.toList());
   }
 
-  @PostConstruct
-  public void registerRateLimiterEvents() {
-    EventPublisher eventPublisher = registry.rateLimiter("api").getEventPublisher();
-    eventPublisher.onFailure(event -> LOG.warn(event.toString()));
+  private UserNotePageDTO mapUserNotes(NotePage page) {
+    return new UserNotePageDTO(mapUserNotes(page.notes()), page.next());
+  }
+
+  private UserNotePageDTO searchText(String name, String query, String language,
+      NoteCursor cursor, int limit, NoteView view) {
+    int offset = NotePage.offset(cursor);
+    int size = NotePage.textSize(offset, limit, props.getSearch());
+    if (size <= 0)
+      return new UserNotePageDTO(List.of(), null);
+
+    return mapUserNotes(NotePage.ofText(
+        unRepo.findByText(name, query, language, offset, size + 1, view), offset, size));
   }
 }
@@ -3,6 +3,8 @@ package com.example.notes.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import com.example.notes.api.SignUpController;
@@ -10,6 +12,7 @@ import com.example.notes.config.UserNotesException;
 import com.example.notes.dto.UserDTO;
 import com.example.notes.model.User;
 import com.example.notes.repo.UserRepo;
+import com.example.notes.security.PasswordHashingRejectedException;
 
 /**
  * User Service
@@ -27,27 +30,69 @@ public class UserService {
   @Autowired
   private PasswordEncoder passwordEncoder;
 
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
   public User findUser(String name) throws UserNotesException {
     try {
-      LOG.debug("Searching for existing user [" + name + "]");
+      LOG.debug("Searching for existing user [{}]", name);
       return userRepo.findByName(name);
     } catch (Exception e) {
       throw new UserNotesException("findUser", "Error sign up new user: " + name, e);
     }
   }
 
-  public synchronized void createUser(UserDTO user) throws UserNotesException {
+  /**
+   * Create new user. Uniqueness of the user name is guaranteed by unique index, so concurrent
+   * signups don't need any lock and password hashing runs in parallel.
+   * 
+   * @param user UserDTO
+   * @throws UserNotesException if user already exists or can't be saved
+   */
+  public void createUser(UserDTO user) throws UserNotesException {
+    // Fast path to skip expensive password hashing for existing users
     if (findUser(user.name()) != null)
-      throw new UserNotesException("checkNewUser", "User [" + user.name() + "] already exists");
+      throw userExists(user.name());
 
     try {
-      LOG.info("Saving new user [" + user.name() + "]");
+      LOG.info("Saving new user [{}]", user.name());
       // Encrypt password b4 save
-      userRepo.save(new User(user.name(), passwordEncoder.encode(user.password())));
+      userRepo.insert(new User(user.name(), passwordEncoder.encode(user.password())));
+      publisher.publishEvent(new UserChangedEvent(user.name()));
+    } catch (DuplicateKeyException e) {
+      // Lost the race with concurrent signup for the same name
+      throw userExists(user.name());
+    } catch (PasswordHashingRejectedException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new UserNotesException("createUser", "Error sign up new user: " + user.name(), e);
+    }
+
+    LOG.debug("Successfully created new user [{}]", user.name());
+  }
+
+  /**
+   * Replace password hash for existing user
+   * 
+   * @param id User Id
+   * @param password New password hash
+   * @throws UserNotesException
+   */
+  public void updatePassword(String id, String password) throws UserNotesException {
+    LOG.info("Updating password hash for user id [{}]", id);
+
+    try {
+      User user = userRepo.findById(id).orElseThrow();
+      user.setPassword(password);
+      userRepo.save(user);
+      publisher.publishEvent(new UserChangedEvent(user.getName()));
     } catch (Exception e) {
-      throw new UserNotesException("createUser", "Error sign up new user: " + user, e);
+      throw new UserNotesException("updatePassword", "Error update password for user id: " + id,
+          e);
     }
+  }
 
-    LOG.debug("Successfully created new user [" + user.name() + "]");
+  private UserNotesException userExists(String name) {
+    return new UserNotesException("checkNewUser", "User [" + name + "] already exists");
   }
 }
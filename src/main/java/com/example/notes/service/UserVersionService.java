@@ -0,0 +1,128 @@
+package com.example.notes.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.example.notes.config.PreconditionFailedException;
+import com.example.notes.config.UserNotesException;
+import com.example.notes.model.UserNote;
+import com.example.notes.model.UserVersion;
+import com.example.notes.repo.UserNoteRepo;
+import com.example.notes.repo.UserVersionRepo;
+
+/**
+ * Strong ETags for notes and lists of notes. Note ETag is the note version and list ETag is the
+ * version of the user which is incremented after every write into any note visible to the user.
+ * Both are read by id with projection, so conditional requests never read note text. This service
+ * is not rate limited since revalidation is cheaper than the request it saves.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Service
+public class UserVersionService {
+
+  private static Logger LOG = LoggerFactory.getLogger(UserVersionService.class);
+
+  @Autowired
+  private UserVersionRepo versionRepo;
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  /**
+   * Get ETag for all notes visible to given user
+   * 
+   * @param name User Name
+   * @return ETag
+   * @throws UserNotesException
+   */
+  public String listTag(String name) throws UserNotesException {
+    try {
+      return tag(versionRepo.findById(name).map(UserVersion::getVersion).orElse(0L));
+    } catch (Exception e) {
+      throw new UserNotesException("version", e);
+    }
+  }
+
+  /**
+   * Get ETag for single note where user has access either as owner or as shared user
+   * 
+   * @param name User Name
+   * @param id Note Id
+   * @return ETag or null if note is not found
+   * @throws UserNotesException
+   */
+  public String noteTag(String name, String id) throws UserNotesException {
+    try {
+      UserNote un = unRepo.findVersionByOwnerAndIdOrUsersAndId(name, id);
+      return un == null ? null : tag(un.getVersion());
+    } catch (Exception e) {
+      throw new UserNotesException("version", e);
+    }
+  }
+
+  /**
+   * Increment version of the owner and all shared users of the note. Must be called after the
+   * note is written, so ETag read before the write is never returned with old content.
+   * 
+   * @param un Written note
+   * @throws UserNotesException
+   */
+  public void increment(UserNote un) throws UserNotesException {
+    Set<String> users = new HashSet<>(un.getUsers());
+    users.add(un.getOwner());
+    increment(users);
+  }
+
+  /**
+   * Increment version of given users
+   * 
+   * @param users User Ids
+   * @throws UserNotesException
+   */
+  public void increment(Collection<String> users) throws UserNotesException {
+    LOG.debug("Incrementing version for users: {}", users);
+    try {
+      versionRepo.increment(users);
+    } catch (Exception e) {
+      // Note is already written, so client must not get old version as not modified
+      throw new UserNotesException("version", e);
+    }
+  }
+
+  /**
+   * Format version as strong ETag
+   * 
+   * @param version Version
+   * @return quoted version
+   */
+  public static String tag(long version) {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * Parse If-Match header into expected version
+   * 
+   * @param ifMatch If-Match header value or null
+   * @return Expected version or null when any version matches
+   * @throws UserNotesException if header is not a strong ETag produced by this service
+   */
+  public static Long parse(String ifMatch) throws UserNotesException {
+    if (ifMatch == null || ifMatch.trim().equals("*"))
+      return null;
+
+    String value = ifMatch.trim();
+    try {
+      if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\""))
+        throw new NumberFormatException(value);
+
+      return Long.parseLong(value.substring(1, value.length() - 1));
+    } catch (NumberFormatException e) {
+      throw new PreconditionFailedException("update", "Invalid If-Match: " + ifMatch);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.example.notes.timing;
+
+import java.util.Locale;
+
+/**
+ * Time spent by sampled request in each stage. Timing is bound to the request thread, so stages
+ * record their time with static methods without passing it around. Requests that are not sampled
+ * have no timing and recording is a thread local lookup only.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+public final class RequestTiming {
+
+  public static final String SERVER_TIMING = "Server-Timing";
+
+  /**
+   * Request stages in the order they run
+   */
+  public enum Stage {
+    // Security filters including session and security context lookup
+    AUTH,
+
+    // Keyed rate limiter
+    RATELIMIT,
+
+    // MongoDB commands, sum of all commands of the request
+    MONGO,
+
+    // Writing response body with Jackson
+    SERIALIZE;
+
+    private final String metric = name().toLowerCase(Locale.ROOT);
+
+    public String metric() {
+      return metric;
+    }
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+  private final long start = System.nanoTime();
+
+  private final long[] nanos = new long[STAGES.length];
+
+  private final int[] counts = new int[STAGES.length];
+
+  private final boolean header;
+
+  private boolean emitted;
+
+  private RequestTiming(boolean header) {
+    this.header = header;
+  }
+
+  /**
+   * Start timing of the request on current thread
+   * 
+   * @param header Whether Server-Timing header should be sent
+   * @return new timing
+   */
+  static RequestTiming start(boolean header) {
+    RequestTiming timing = new RequestTiming(header);
+    CURRENT.set(timing);
+    return timing;
+  }
+
+  static void clear() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Get timing of the current request
+   * 
+   * @return timing or null when request isn't sampled
+   */
+  public static RequestTiming current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Add time spent in stage by the current request
+   * 
+   * @param stage Stage
+   * @param nanos Time in nanoseconds
+   */
+  public static void record(Stage stage, long nanos) {
+    RequestTiming timing = CURRENT.get();
+    if (timing != null) {
+      timing.nanos[stage.ordinal()] += nanos;
+      timing.counts[stage.ordinal()]++;
+    }
+  }
+
+  /**
+   * Record authentication stage as time from the request start
+   */
+  public static void authenticated() {
+    RequestTiming timing = CURRENT.get();
+    if (timing != null)
+      record(Stage.AUTH, System.nanoTime() - timing.start);
+  }
+
+  long nanos(Stage stage) {
+    return nanos[stage.ordinal()];
+  }
+
+  int count(Stage stage) {
+    return counts[stage.ordinal()];
+  }
+
+  long elapsed() {
+    return System.nanoTime() - start;
+  }
+
+  boolean isHeaderPending() {
+    return header && !emitted;
+  }
+
+  /**
+   * Server-Timing header value with every stage that ran and total time so far, rounded to whole
+   * milliseconds. Header can only be sent once, before response body.
+   * 
+   * @return header value
+   */
+  String emit() {
+    emitted = true;
+
+    StringBuilder sb = new StringBuilder(128);
+    for (Stage stage : STAGES) {
+      if (counts[stage.ordinal()] > 0)
+        duration(sb, stage.metric(), nanos[stage.ordinal()]).append(", ");
+    }
+    return duration(sb, "total", elapsed()).toString();
+  }
+
+  private static StringBuilder duration(StringBuilder sb, String name, long nanos) {
+    // Whole milliseconds only, finer timings stay in metrics
+    return sb.append(name).append(";dur=").append((nanos + 500_000) / 1_000_000);
+  }
+}
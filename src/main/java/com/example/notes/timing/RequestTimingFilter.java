@@ -0,0 +1,101 @@
+package com.example.notes.timing;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import com.example.notes.config.NotesProperties;
+import com.example.notes.timing.RequestTiming.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Times sampled requests by stage. Runs right before security filters, so authentication stage
+ * includes session lookup. Stage timings are sent in Server-Timing header and recorded as
+ * "notes.request.stages" timer by stage and route. Timers are kept by route, so sampled request
+ * only records them.
+ * 
+ * JSON responses get the header from {@link TimingJacksonHttpMessageConverter} with serialization
+ * time, other responses get it here when response isn't committed yet.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+  private static final String UNMAPPED = "unmapped";
+
+  private static final Stage[] STAGES = Stage.values();
+
+  // Index of total time in timers of the route, after all stages
+  private static final int TOTAL = STAGES.length;
+
+  @Autowired
+  private NotesProperties props;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  // Timers by route, indexed by stage ordinal and total, registered on first use
+  private final Map<String, AtomicReferenceArray<Timer>> timers = new ConcurrentHashMap<>();
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    NotesProperties.Timing config = props.getTiming();
+    if (!config.isEnabled() || ThreadLocalRandom.current().nextDouble() >= config.getSampleRate()) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    RequestTiming timing = RequestTiming.start(config.isHeader());
+    try {
+      chain.doFilter(request, response);
+      if (timing.isHeaderPending() && !response.isCommitted())
+        response.addHeader(RequestTiming.SERVER_TIMING, timing.emit());
+    } finally {
+      RequestTiming.clear();
+      record(timing, request);
+    }
+  }
+
+  private void record(RequestTiming timing, HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern == null ? UNMAPPED : pattern.toString();
+
+    AtomicReferenceArray<Timer> timers =
+        this.timers.computeIfAbsent(uri, k -> new AtomicReferenceArray<>(TOTAL + 1));
+    for (Stage stage : STAGES) {
+      if (timing.count(stage) > 0)
+        timer(timers, stage.ordinal(), stage.metric(), uri).record(timing.nanos(stage),
+            TimeUnit.NANOSECONDS);
+    }
+    timer(timers, TOTAL, "total", uri).record(timing.elapsed(), TimeUnit.NANOSECONDS);
+  }
+
+  private Timer timer(AtomicReferenceArray<Timer> timers, int index, String stage, String uri) {
+    Timer timer = timers.get(index);
+    if (timer == null) {
+      // Racing threads get the same timer from registry
+      timer = Timer.builder("notes.request.stages").tag("stage", stage).tag("uri", uri)
+          .publishPercentileHistogram().register(registry);
+      timers.set(index, timer);
+    }
+    return timer;
+  }
+}
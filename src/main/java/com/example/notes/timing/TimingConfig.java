@@ -0,0 +1,25 @@
+package com.example.notes.timing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Request timing configuration for servlet (MVC) mode. Reactive requests switch threads, so they
+ * are not timed by stage.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TimingConfig {
+
+  // Replaces default Jackson converter of Spring Boot
+  @Bean
+  MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+      ObjectMapper objectMapper) {
+    return new TimingJacksonHttpMessageConverter(objectMapper);
+  }
+}
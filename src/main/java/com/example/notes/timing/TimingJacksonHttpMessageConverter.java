@@ -0,0 +1,63 @@
+package com.example.notes.timing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import com.example.notes.timing.RequestTiming.Stage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson converter that times serialization of sampled requests. Server-Timing header has to be
+ * sent before the body, so sampled body is written to a buffer first and header with all stages
+ * is added before the buffer is copied to response. Requests that are not sampled or don't send
+ * the header are written directly.
+ * 
+ * @author Igor Peonte <igor.144@gmail.com>
+ */
+public class TimingJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  public TimingJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException, HttpMessageNotWritableException {
+    RequestTiming timing = RequestTiming.current();
+    if (timing == null) {
+      super.writeInternal(object, type, outputMessage);
+      return;
+    }
+
+    long start = System.nanoTime();
+    if (!timing.isHeaderPending()) {
+      super.writeInternal(object, type, outputMessage);
+      RequestTiming.record(Stage.SERIALIZE, System.nanoTime() - start);
+      return;
+    }
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+    super.writeInternal(object, type, new HttpOutputMessage() {
+      @Override
+      public OutputStream getBody() {
+        return buffer;
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+        return outputMessage.getHeaders();
+      }
+    });
+    RequestTiming.record(Stage.SERIALIZE, System.nanoTime() - start);
+
+    outputMessage.getHeaders().add(RequestTiming.SERVER_TIMING, timing.emit());
+    buffer.writeTo(outputMessage.getBody());
+  }
+}
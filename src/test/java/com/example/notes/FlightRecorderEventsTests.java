@@ -0,0 +1,111 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.UserNoteDTO;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Record requests with notes.jfc settings and check that domain events are present, and that
+ * default JDK settings don't record them
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource("classpath:/test.properties")
+public class FlightRecorderEventsTests extends BaseAppTest {
+
+  private static final String NOTE_EVENT = "com.example.notes.NoteOperation";
+  private static final String LIMIT_EVENT = "com.example.notes.RateLimit";
+  private static final String HASH_EVENT = "com.example.notes.PasswordHash";
+  private static final String NOTES_URL = Constants.BASE_URL + Constants.BASE_NOTES_URL;
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Test
+  void testNotesProfileRecordsDomainEvents() throws Exception {
+    Configuration config;
+    try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/notes.jfc"),
+        StandardCharsets.UTF_8)) {
+      config = Configuration.create(reader);
+    }
+
+    List<RecordedEvent> events = record(config, "jfr", "jfr note");
+
+    RecordedEvent add = find(events, NOTE_EVENT, "operation", "add");
+    assertEquals(1, add.getInt("results"), "Add is expected to return single note.");
+    assertEquals("jfr note".length(), add.getLong("payload"), "Add payload doesn't match.");
+    assertTrue(add.getDuration().toNanos() > 0, "Add duration is expected.");
+
+    RecordedEvent findAll = find(events, NOTE_EVENT, "operation", "findAll");
+    assertEquals(1, findAll.getInt("results"), "FindAll is expected to return single note.");
+    assertNull(findAll.getString("error"), "FindAll is not expected to fail.");
+
+    RecordedEvent limit = find(events, LIMIT_EVENT, "operation", "findAll");
+    assertEquals("api", limit.getString("limiter"), "Rate limiter name doesn't match.");
+    assertTrue(limit.getBoolean("permitted"), "FindAll is expected to be permitted.");
+
+    find(events, HASH_EVENT, "operation", "encode");
+    RecordedEvent matches = find(events, HASH_EVENT, "operation", "matches");
+    assertTrue(matches.getDuration().toNanos() > 0, "Hashing duration is expected.");
+  }
+
+  @Test
+  void testDefaultProfileSkipsDomainEvents() throws Exception {
+    List<RecordedEvent> events =
+        record(Configuration.getConfiguration("default"), "nojfr", "no jfr note");
+
+    assertTrue(events.stream().noneMatch(e -> e.getEventType().getName()
+        .startsWith("com.example.notes.")), "Domain events are expected to be disabled.");
+  }
+
+  private List<RecordedEvent> record(Configuration config, String user, String note)
+      throws Exception {
+    try (Recording recording = new Recording(config)) {
+      recording.start();
+      String cookie = createTestUser(user, "pwd")[0];
+      ResponseEntity<UserNoteDTO> resp = rest.exchange(NOTES_URL, HttpMethod.POST,
+          new HttpEntity<>(new BaseUserNoteDTO(note), getAuthHttpHeaders(cookie)),
+          UserNoteDTO.class);
+      assertEquals(HttpStatus.OK, resp.getStatusCode(), "Add note response status doesn't match.");
+      searchAllNotes(cookie);
+      recording.stop();
+
+      Path file = Files.createTempFile("notes", ".jfr");
+      try {
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private static RecordedEvent find(List<RecordedEvent> events, String type, String field,
+      String value) {
+    return events.stream().filter(e -> e.getEventType().getName().equals(type)
+        && value.equals(e.getString(field))).findFirst()
+        .orElseThrow(() -> new AssertionError(type + " event with " + field + "=" + value
+            + " is expected."));
+  }
+}
@@ -0,0 +1,325 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.model.User;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.UserNoteRepo;
+import com.example.notes.repo.UserRepo;
+
+/**
+ * End-to-end load test with embedded MongoDB. Seeds users with notes shared with other users, then
+ * sends a mix of reads, writes and searches from many sessions at a fixed arrival rate.
+ * 
+ * Latency is measured from the time request was scheduled to be sent, not from the time it was
+ * actually sent, so a stalled server can't hide queueing delay by slowing down the client
+ * (coordinated omission). Uncorrected latency is reported next to it for comparison. Percentiles
+ * and throughput per endpoint are logged and written to target/load.
+ * 
+ * All parameters can be set with system properties, e.g. mvn test -Pload -Dload.rate=500
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:/test.properties", properties = {
+    // Measure the application, not the rate limiter
+    "resilience4j.ratelimiter.instances.api.limit-for-period=1000000",
+    "resilience4j.ratelimiter.instances.login.limit-for-period=1000000"})
+public class LoadTests extends BaseAppTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoadTests.class);
+
+  private static final String PASSWORD = "pwd";
+  private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot",
+      "golf", "hotel", "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa"};
+  private static final double NANOS_PER_MS = 1_000_000.0;
+
+  private enum Endpoint {
+    LIST, GET, SEARCH, SYNC, CREATE, UPDATE
+  }
+
+  private record Session(String name, String cookie, List<String> notes) {
+  }
+
+  private static class Stats {
+
+    // Latency from scheduled send time, corrected for coordinated omission
+    private final Histogram latency = new ConcurrentHistogram(3);
+
+    // Latency from actual send time, what a closed loop client would report
+    private final Histogram service = new ConcurrentHistogram(3);
+
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private void record(HttpResponse<?> res, Throwable e, long scheduled, long sent) {
+      long now = System.nanoTime();
+      latency.recordValue(now - scheduled);
+      service.recordValue(now - sent);
+      if (e != null || res.statusCode() != 200)
+        errors.incrementAndGet();
+    }
+  }
+
+  // Number of seeded users
+  @Value("${load.users:100}")
+  private int users;
+
+  // Number of notes owned by each user
+  @Value("${load.notes:100}")
+  private int notes;
+
+  // Number of other users each note is shared with
+  @Value("${load.fanout:5}")
+  private int fanout;
+
+  // Number of logged in sessions, spread evenly over users
+  @Value("${load.sessions:200}")
+  private int sessions;
+
+  // Requests per second
+  @Value("${load.rate:200}")
+  private int rate;
+
+  // Load before measurement, so caches, JIT and connection pools are warm
+  @Value("${load.warmup:10s}")
+  private Duration warmup;
+
+  @Value("${load.duration:30s}")
+  private Duration duration;
+
+  // Weight of each endpoint in the request mix
+  @Value("${load.mix:list:35,get:25,search:10,sync:10,create:10,update:10}")
+  private String mix;
+
+  @Value("${load.report-dir:target/load}")
+  private String reportDir;
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+
+  @Test
+  void testMixedWorkloadAtFixedRate() throws Exception {
+    assertTrue(users > fanout && notes > 0 && sessions > 0 && rate > 0, "Invalid load parameters.");
+
+    LOG.info("Seeding {} users x {} notes, each note shared with {} users", users, notes, fanout);
+    List<Session> logins = seed();
+    List<Endpoint> endpoints = parseMix();
+
+    LOG.info("Warming up at {} req/s for {}", rate, warmup);
+    run(logins, endpoints, warmup);
+
+    LOG.info("Measuring at {} req/s for {} with {} sessions", rate, duration, logins.size());
+    long start = System.nanoTime();
+    Map<Endpoint, Stats> stats = run(logins, endpoints, duration);
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    int errors = report(stats, seconds);
+    assertEquals(0, errors, "Load requests failed.");
+  }
+
+  /**
+   * Insert users and notes directly into the database, then login every session over HTTP. Notes
+   * are shared by user name, so shared notes show up in lists, searches and syncs of other users.
+   */
+  private List<Session> seed() {
+    // Hash once, bcrypt for every seeded user would dominate seeding time
+    String hash = passwordEncoder.encode(PASSWORD);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    List<List<String>> owned = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      userRepo.save(new User(userName(i), hash));
+
+      List<UserNote> batch = new ArrayList<>(notes);
+      for (int j = 0; j < notes; j++) {
+        UserNote un = new UserNote(userName(i), text(random, j));
+        while (un.getUsers().size() < fanout) {
+          int other = random.nextInt(users);
+          if (other != i)
+            un.addUser(userName(other));
+        }
+        batch.add(un);
+      }
+      owned.add(unRepo.insert(batch).stream().map(UserNote::getId).toList());
+    }
+
+    List<Session> result = new ArrayList<>(sessions);
+    for (int i = 0; i < sessions; i++) {
+      String name = userName(i % users);
+      result.add(new Session(name, login(name, PASSWORD).split(";")[0], owned.get(i % users)));
+    }
+
+    return result;
+  }
+
+  /**
+   * Send requests at fixed intervals from a single thread regardless of how many are still in
+   * flight, then wait for all of them to complete
+   */
+  private Map<Endpoint, Stats> run(List<Session> logins, List<Endpoint> endpoints,
+      Duration length) throws Exception {
+    Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    for (Endpoint endpoint : Endpoint.values())
+      stats.put(endpoint, new Stats());
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long interval = 1_000_000_000L / rate;
+    long count = length.toNanos() / interval;
+    List<CompletableFuture<?>> futures = new ArrayList<>((int) count);
+
+    long start = System.nanoTime();
+    for (long i = 0; i < count; i++) {
+      long scheduled = start + i * interval;
+      long wait;
+      while ((wait = scheduled - System.nanoTime()) > 0)
+        LockSupport.parkNanos(wait);
+
+      Endpoint endpoint = endpoints.get(random.nextInt(endpoints.size()));
+      HttpRequest request = request(endpoint, logins.get(random.nextInt(logins.size())), random);
+      long sent = System.nanoTime();
+      futures.add(client.sendAsync(request, BodyHandlers.discarding())
+          .whenComplete((res, e) -> stats.get(endpoint).record(res, e, scheduled, sent)));
+    }
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((r, e) -> r).get();
+
+    return stats;
+  }
+
+  private HttpRequest request(Endpoint endpoint, Session session, ThreadLocalRandom random) {
+    String base = "http://localhost:" + port + Constants.BASE_URL;
+    String word = WORDS[random.nextInt(WORDS.length)];
+    String id = session.notes().get(random.nextInt(session.notes().size()));
+
+    HttpRequest.Builder builder = switch (endpoint) {
+      case LIST -> get(base + Constants.BASE_NOTES_URL + "?limit=20");
+      case GET -> get(base + Constants.BASE_NOTES_URL + "/" + id);
+      case SEARCH -> get(base + Constants.SEARCH_NOTES_URL + "?limit=20&query=" + word);
+      case SYNC -> get(base + Constants.SYNC_NOTES_URL + "?limit=100");
+      case CREATE -> json(base + Constants.BASE_NOTES_URL)
+          .POST(BodyPublishers.ofString("{\"note\":\"" + text(random, 0) + "\"}"));
+      case UPDATE -> json(base + Constants.BASE_NOTES_URL).PUT(
+          BodyPublishers.ofString("{\"id\":\"" + id + "\",\"note\":\"" + text(random, 1) + "\"}"));
+    };
+
+    return builder.header("Cookie", session.cookie()).timeout(Duration.ofSeconds(30)).build();
+  }
+
+  private HttpRequest.Builder get(String url) {
+    return HttpRequest.newBuilder(URI.create(url)).GET();
+  }
+
+  private HttpRequest.Builder json(String url) {
+    return HttpRequest.newBuilder(URI.create(url)).header("Content-Type", "application/json");
+  }
+
+  /**
+   * Log and write latency percentiles in milliseconds and throughput per endpoint, plus full
+   * percentile distribution of each endpoint in HdrHistogram format
+   * 
+   * @return total number of failed requests
+   */
+  private int report(Map<Endpoint, Stats> stats, double seconds) throws Exception {
+    Path dir = Files.createDirectories(Path.of(reportDir));
+    Stats total = new Stats();
+    List<String> rows = new ArrayList<>();
+    rows.add("endpoint,requests,errors,throughput,p50,p99,p999,max,service_p50,service_p99,"
+        + "service_p999");
+
+    for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+      Stats s = entry.getValue();
+      total.latency.add(s.latency);
+      total.service.add(s.service);
+      total.errors.addAndGet(s.errors.get());
+      rows.add(row(entry.getKey().name().toLowerCase(Locale.ROOT), s, seconds));
+
+      try (PrintStream out = new PrintStream(
+          dir.resolve(entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm").toFile())) {
+        s.latency.outputPercentileDistribution(out, NANOS_PER_MS);
+      }
+    }
+    rows.add(row("all", total, seconds));
+
+    Files.write(dir.resolve("load-report.csv"), rows);
+    LOG.info("Latency in ms, corrected for coordinated omission:\n{}",
+        String.join("\n", rows).replace(',', '\t'));
+
+    return total.errors.get();
+  }
+
+  private String row(String name, Stats s, double seconds) {
+    return String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f", name,
+        s.latency.getTotalCount(), s.errors.get(), s.latency.getTotalCount() / seconds,
+        ms(s.latency, 50), ms(s.latency, 99), ms(s.latency, 99.9),
+        s.latency.getMaxValue() / NANOS_PER_MS, ms(s.service, 50), ms(s.service, 99),
+        ms(s.service, 99.9));
+  }
+
+  private List<Endpoint> parseMix() {
+    List<Endpoint> result = new ArrayList<>();
+    for (String part : mix.split(",")) {
+      String[] weight = part.trim().split(":");
+      Endpoint endpoint = Endpoint.valueOf(weight[0].toUpperCase(Locale.ROOT));
+      for (int i = 0; i < Integer.parseInt(weight[1]); i++)
+        result.add(endpoint);
+    }
+
+    assertTrue(!result.isEmpty(), "Empty load mix.");
+    return result;
+  }
+
+  private static double ms(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / NANOS_PER_MS;
+  }
+
+  private static String userName(int i) {
+    return "load-user" + i;
+  }
+
+  private static String text(ThreadLocalRandom random, int i) {
+    return "note " + i + " " + WORDS[random.nextInt(WORDS.length)] + " "
+        + WORDS[random.nextInt(WORDS.length)];
+  }
+}
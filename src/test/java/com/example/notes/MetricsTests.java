@@ -0,0 +1,77 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.UserNoteDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+// Metrics export and Prometheus endpoint are disabled in tests by default
+@AutoConfigureObservability
+@TestPropertySource("classpath:/test.properties")
+public class MetricsTests extends BaseAppTest {
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Test
+  void testServiceAndRepositoryMetrics() {
+    long adds = count(registry.find("notes.service").tag("method", "add").timer());
+    long sizes = count(registry.find("notes.size").tag("operation", "add").summary());
+    long results = count(registry.find("notes.results").tag("operation", "findAll").summary());
+
+    String cookie = createTestUser()[0];
+    ResponseEntity<UserNoteDTO> resp = rest.exchange(Constants.BASE_URL + Constants.BASE_NOTES_URL,
+        HttpMethod.POST,
+        new HttpEntity<>(new BaseUserNoteDTO("metrics"), getAuthHttpHeaders(cookie)),
+        UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Add note response status doesn't match.");
+    searchAllNotes(cookie);
+
+    assertEquals(adds + 1, count(registry.find("notes.service").tag("method", "add").timer()),
+        "Service timer count doesn't match.");
+    assertEquals(sizes + 1, count(registry.find("notes.size").tag("operation", "add").summary()),
+        "Note size count doesn't match.");
+    assertEquals(results + 1,
+        count(registry.find("notes.results").tag("operation", "findAll").summary()),
+        "Result count doesn't match.");
+    assertNotNull(registry.find("spring.data.repository.invocations")
+        .tag("repository", "UserNoteRepo").timer(), "Repository timer is expected.");
+    assertNotNull(registry.find("spring.data.repository.invocations")
+        .tag("repository", "UserRepo").timer(), "Repository timer is expected.");
+
+    ResponseEntity<String> scrape = rest.exchange("/actuator/prometheus", HttpMethod.GET,
+        getHttpEntity(cookie), String.class);
+    assertEquals(HttpStatus.OK, scrape.getStatusCode(), "Prometheus response doesn't match.");
+    assertTrue(scrape.getBody().contains("notes_service_seconds_bucket"),
+        "Prometheus scrape is expected to contain service histogram.");
+    assertTrue(scrape.getBody().contains("spring_data_repository_invocations_seconds_bucket"),
+        "Prometheus scrape is expected to contain repository histogram.");
+  }
+
+  private static long count(Timer timer) {
+    return timer == null ? 0 : timer.count();
+  }
+
+  private static long count(DistributionSummary summary) {
+    return summary == null ? 0 : summary.count();
+  }
+}
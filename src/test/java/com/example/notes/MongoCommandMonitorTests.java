@@ -0,0 +1,116 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.BulkOperationDTO;
+import com.example.notes.dto.BulkOperationDTO.Type;
+import com.example.notes.dto.BulkResultDTO;
+import com.example.notes.dto.UserNoteDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:/test.properties",
+    // Every command is slow and explained
+    properties = {"notes.mongo.slow-threshold=0ms", "notes.mongo.explain-interval=0s"})
+public class MongoCommandMonitorTests extends BaseAppTest {
+
+  private static final long EXPLAIN_TIMEOUT = 10000;
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Test
+  void testSlowCommandsAreExplained() throws Exception {
+    String cookie = createTestUser()[0];
+    ResponseEntity<UserNoteDTO> resp = rest.exchange(Constants.BASE_URL + Constants.BASE_NOTES_URL,
+        HttpMethod.POST, new HttpEntity<>(new BaseUserNoteDTO("slow"), getAuthHttpHeaders(cookie)),
+        UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Add note response status doesn't match.");
+    searchAllNotes(cookie);
+
+    assertNotNull(registry.find("notes.mongo.pool.checkout").tag("result", "success").timer(),
+        "Connection checkout timer is expected.");
+    assertNotNull(registry.find("notes.mongo.documents.returned").tag("command", "find")
+        .tag("collection", "userNote").summary(), "Returned documents summary is expected.");
+
+    Map<String, Object> explain = waitForExplain(cookie, "find");
+    assertNotNull(explain, "Slow find on userNote is expected to be explained.");
+    assertTrue(explain.get("plan").toString().contains("IXSCAN"),
+        "Find is expected to use index: " + explain.get("plan"));
+    assertTrue(((Number) explain.get("docsExamined")).longValue() >= 0,
+        "Examined documents are expected.");
+  }
+
+  @Test
+  void testSlowWriteBatchIsExplained() throws Exception {
+    String cookie = createTestUser()[0];
+    String id1 = add(cookie, "first");
+    String id2 = add(cookie, "second");
+
+    // Single update command with two statements
+    ResponseEntity<BulkResultDTO[]> resp =
+        rest.exchange(Constants.BASE_URL + Constants.BULK_NOTES_URL, HttpMethod.POST,
+            new HttpEntity<>(List.of(new BulkOperationDTO(Type.UPDATE, id1, "first2", null),
+                new BulkOperationDTO(Type.UPDATE, id2, "second2", null)),
+                getAuthHttpHeaders(cookie)),
+            BulkResultDTO[].class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Bulk response status doesn't match.");
+
+    // Explain accepts only single statement, so the copy keeps the first one
+    assertNotNull(waitForExplain(cookie, "update"),
+        "Slow update batch on userNote is expected to be explained.");
+  }
+
+  private String add(String cookie, String note) {
+    ResponseEntity<UserNoteDTO> resp = rest.exchange(Constants.BASE_URL + Constants.BASE_NOTES_URL,
+        HttpMethod.POST, new HttpEntity<>(new BaseUserNoteDTO(note), getAuthHttpHeaders(cookie)),
+        UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Add note response status doesn't match.");
+    return resp.getBody().id();
+  }
+
+  private Map<String, Object> waitForExplain(String cookie, String command)
+      throws InterruptedException {
+    // Explain runs in background
+    Map<String, Object> explain = null;
+    long deadline = System.currentTimeMillis() + EXPLAIN_TIMEOUT;
+    while (explain == null && System.currentTimeMillis() < deadline) {
+      explain = findExplain(cookie, command);
+      if (explain == null)
+        Thread.sleep(100);
+    }
+
+    return explain;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> findExplain(String cookie, String command) {
+    ResponseEntity<List<Map<String, Object>>> resp = rest.exchange("/actuator/slowcommands",
+        HttpMethod.GET, getHttpEntity(cookie),
+        new ParameterizedTypeReference<List<Map<String, Object>>>() {});
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Slow commands response doesn't match.");
+
+    return resp.getBody().stream()
+        .filter(c -> command.equals(c.get("command")) && "userNote".equals(c.get("collection"))
+            && c.get("explain") != null)
+        .map(c -> (Map<String, Object>) c.get("explain")).findFirst().orElse(null);
+  }
+}
@@ -0,0 +1,186 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition.TextIndexDefinitionBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.config.MongoIndexManager;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNoteSummaryDTO;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.NoteView;
+import com.example.notes.repo.UserNoteRepo;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:/test.properties",
+    properties = "notes.compression.threshold=1KB")
+public class NoteCompressionTests extends BaseAppTest {
+
+  private static final String TEST_USER = "compress1";
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private MongoTemplate mongo;
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  @Autowired
+  private MongoIndexManager indexManager;
+
+  @Test
+  void testLargeNotesAreCompressed() {
+    String cookie = createTestUser(TEST_USER, "test1")[0];
+    String text = "compressed " + "line of a large note\n".repeat(200);
+
+    UserNoteDTO added = send(cookie, HttpMethod.POST, new BaseUserNoteDTO(text));
+    assertEquals(text, added.note(), "Added note text doesn't match.");
+    checkStored(added.id(), true);
+
+    // Read back decompressed
+    ResponseEntity<UserNoteDTO> resp =
+        rest.exchange(Constants.BASE_URL + Constants.BASE_NOTES_URL + "/" + added.id(),
+            HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Find note response status doesn't match.");
+    assertEquals(text, resp.getBody().note(), "Found note text doesn't match.");
+
+    // Text search by word of the compressed note
+    ResponseEntity<UserNoteDTO[]> found =
+        rest.exchange(Constants.BASE_URL + Constants.SEARCH_NOTES_URL + "?query=compressed",
+            HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO[].class);
+    assertEquals(HttpStatus.OK, found.getStatusCode(), "Search response status doesn't match.");
+    assertEquals(1, found.getBody().length, "Number of found notes doesn't match.");
+    assertEquals(text, found.getBody()[0].note(), "Searched note text doesn't match.");
+
+    // Regex search by word of the compressed note
+    List<UserNote> matched = unRepo.findByQuery(TEST_USER, "compressed", null, 10, NoteView.FULL);
+    assertEquals(1, matched.size(), "Number of regex matched notes doesn't match.");
+    assertEquals(text, matched.get(0).getNote(), "Regex matched note text doesn't match.");
+
+    // Summary reads preview stored with compressed note
+    ResponseEntity<UserNoteSummaryDTO[]> summary = rest.exchange(
+        Constants.BASE_URL + Constants.BASE_NOTES_URL + "?view=summary", HttpMethod.GET,
+        getHttpEntity(cookie), UserNoteSummaryDTO[].class);
+    assertEquals(HttpStatus.OK, summary.getStatusCode(), "Summary response status doesn't match.");
+    assertEquals(text.substring(0, NoteView.PREVIEW_LENGTH), summary.getBody()[0].preview(),
+        "Preview of compressed note doesn't match.");
+
+    // Large update stays compressed, small one is stored as is
+    String updated = "updated " + text;
+    assertEquals(updated, send(cookie, HttpMethod.PUT, new UserNoteDTO(added.id(), updated))
+        .note(), "Updated note text doesn't match.");
+    checkStored(added.id(), true);
+
+    assertEquals("small", send(cookie, HttpMethod.PUT, new UserNoteDTO(added.id(), "small"))
+        .note(), "Updated note text doesn't match.");
+    checkStored(added.id(), false);
+  }
+
+  @Test
+  void testSearchWholeCompressedNote() {
+    String cookie = createTestUser(TEST_USER, "test1")[0];
+    // Unique tokens like ids in logs, far over 16KB before the searched word
+    StringBuilder sb = new StringBuilder("compressed log\n");
+    for (int i = 0; i < 5000; i++)
+      sb.append("request id=").append(Integer.toHexString(i * 7919)).append(" done\n");
+    String text = sb.append("last needle of the log").toString();
+    String id = send(cookie, HttpMethod.POST, new BaseUserNoteDTO(text)).id();
+    checkStored(id, true);
+
+    ResponseEntity<UserNoteDTO[]> found =
+        rest.exchange(Constants.BASE_URL + Constants.SEARCH_NOTES_URL + "?query=needle",
+            HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO[].class);
+    assertEquals(HttpStatus.OK, found.getStatusCode(), "Search response status doesn't match.");
+    assertEquals(1, found.getBody().length, "Word at the end of the note isn't found.");
+
+    // Regex search mode with words and phrases
+    for (String query : new String[] {"needle", "needle of the", "id=3", "request id=1eef done"}) {
+      List<UserNote> matched = unRepo.findByQuery(TEST_USER, query, null, 10, NoteView.FULL);
+      assertEquals(1, matched.size(), "Regex search doesn't match: " + query);
+    }
+    assertTrue(unRepo.findByQuery(TEST_USER, "needle the", null, 10, NoteView.FULL).isEmpty(),
+        "Words that aren't adjacent aren't expected to match.");
+  }
+
+  @Test
+  void testNotesAreNotCompressedWithOlderTextIndex() {
+    String cookie = createTestUser(TEST_USER, "test1")[0];
+    // Database indexed by the previous version, text index only has plain notes
+    IndexOperations ops = mongo.indexOps(UserNote.class);
+    ops.dropIndex(MongoIndexManager.SEARCH_TEXT_INDEX);
+    ops.ensureIndex(new TextIndexDefinitionBuilder().onField("note").named("note_text").build());
+
+    try {
+      indexManager.ensureIndexes(false);
+      String text = "compressed " + "line of a note before index replacement\n".repeat(200);
+      String id = send(cookie, HttpMethod.POST, new BaseUserNoteDTO(text)).id();
+      checkStored(id, false);
+
+      ResponseEntity<UserNoteDTO[]> found =
+          rest.exchange(Constants.BASE_URL + Constants.SEARCH_NOTES_URL + "?query=replacement",
+              HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO[].class);
+      assertEquals(HttpStatus.OK, found.getStatusCode(), "Search response status doesn't match.");
+      assertEquals(1, found.getBody().length, "Note over threshold isn't found by older index.");
+      assertEquals(id, found.getBody()[0].id(), "Found note doesn't match.");
+    } finally {
+      indexManager.ensureIndexes(true);
+    }
+
+    // Compressed again once index is replaced
+    String id = send(cookie, HttpMethod.POST,
+        new BaseUserNoteDTO("compressed " + "line of a large note\n".repeat(200))).id();
+    checkStored(id, true);
+  }
+
+  @Test
+  void testSmallNotesAreNotCompressed() {
+    String cookie = createTestUser()[0];
+    UserNoteDTO added = send(cookie, HttpMethod.POST, new BaseUserNoteDTO("small note"));
+    checkStored(added.id(), false);
+  }
+
+  private UserNoteDTO send(String cookie, HttpMethod method, Object note) {
+    ResponseEntity<UserNoteDTO> resp = rest.exchange(Constants.BASE_URL + Constants.BASE_NOTES_URL,
+        method, new HttpEntity<>(note, getAuthHttpHeaders(cookie)), UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), method + " note status doesn't match.");
+    assertNotNull(resp.getBody(), "Expected non null response body.");
+    return resp.getBody();
+  }
+
+  private void checkStored(String id, boolean compressed) {
+    Document doc = mongo.getCollection(mongo.getCollectionName(UserNote.class))
+        .find(new Document("_id", new ObjectId(id))).first();
+    assertNotNull(doc, "Stored note is expected.");
+    assertEquals(compressed, doc.containsKey("noteZ"), "Compressed field presence doesn't match.");
+    assertEquals(compressed, doc.containsKey("codec"), "Codec field presence doesn't match.");
+    assertEquals(!compressed, doc.containsKey("note"), "Plain field presence doesn't match.");
+    if (compressed) {
+      assertTrue(doc.getString("searchText").contains("compressed"),
+          "Search text is expected to have note words.");
+      assertTrue(doc.getString("preview").startsWith("compressed"),
+          "Preview is expected to have first characters of the note.");
+    } else {
+      assertFalse(doc.containsKey("searchText"), "Search text isn't expected.");
+      assertFalse(doc.containsKey("preview"), "Preview isn't expected.");
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.api.NoteEventBroadcaster;
+import com.example.notes.ratelimit.RateLimitExceededException;
+import com.example.notes.service.NoteChangedEvent;
+import com.example.notes.service.NoteChangedEvent.Type;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:/test.properties",
+    // Single sender, so stuck write would stop every other connection
+    properties = {"notes.stream.senders=1", "notes.stream.send-timeout=500ms",
+        "notes.stream.buffer-size=100000", "notes.stream.max-connections-per-user=5"})
+public class NoteEventStreamTests extends BaseAppTest {
+
+  private static final String SLOW = "slow1";
+  private static final String FAST = "fast1";
+
+  // Far more than socket buffers of the client that doesn't read
+  private static final int EVENTS = 50000;
+
+  private static final String CONCURRENT = "concurrent1";
+
+  private static final int MAX_CONNECTIONS = 5;
+
+  private static final long TIMEOUT = 15000;
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Autowired
+  private NoteEventBroadcaster broadcaster;
+
+  @Test
+  void testClientThatDoesntReadIsEvicted() throws Exception {
+    String slow = createTestUser(SLOW, "test1")[0];
+    String fast = createTestUser(FAST, "test1")[0];
+    URI uri = URI.create(rest.getRootUri() + Constants.BASE_URL + Constants.STREAM_NOTES_URL);
+    double open = connections();
+
+    try (Socket socket = new Socket()) {
+      // Client that subscribes and never reads
+      socket.setReceiveBufferSize(1024);
+      socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()));
+      OutputStream out = socket.getOutputStream();
+      out.write(("GET " + uri.getPath() + " HTTP/1.1\r\nHost: " + uri.getHost() + "\r\nCookie: "
+          + slow + "\r\nAccept: " + MediaType.TEXT_EVENT_STREAM_VALUE + "\r\n\r\n")
+          .getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+
+      HttpRequest request = HttpRequest.newBuilder(uri).header("Cookie", fast)
+          .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE).build();
+      HttpResponse<Stream<String>> resp =
+          HttpClient.newHttpClient().send(request, BodyHandlers.ofLines());
+      assertEquals(HttpStatus.OK.value(), resp.statusCode(),
+          "Stream response status doesn't match.");
+      waitForConnections(open + 2);
+
+      try (Stream<String> lines = resp.body()) {
+        CompletableFuture<Boolean> last = CompletableFuture.supplyAsync(
+            () -> lines.filter(line -> line.startsWith("data:")).anyMatch(l -> l.contains("last")));
+
+        for (int i = 0; i < EVENTS; i++)
+          publisher.publishEvent(new NoteChangedEvent(Type.UPDATE, "note" + i, Set.of(SLOW, FAST)));
+        publisher.publishEvent(new NoteChangedEvent(Type.UPDATE, "last", Set.of(SLOW, FAST)));
+
+        assertTrue(last.get(TIMEOUT, TimeUnit.MILLISECONDS),
+            "All events are expected by client that reads.");
+      }
+
+      assertTrue(registry.get("notes.stream.evicted").counter().count() >= 1,
+          "Client that doesn't read is expected to be evicted.");
+    }
+  }
+
+  @Test
+  void testConcurrentSubscribeKeepsLimit() throws Exception {
+    double open = connections();
+    int threads = MAX_CONNECTIONS * 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++)
+        results.add(executor.submit(() -> {
+          start.await();
+          try {
+            return broadcaster.subscribe(CONCURRENT) != null;
+          } catch (RateLimitExceededException e) {
+            return false;
+          }
+        }));
+      start.countDown();
+
+      int subscribed = 0;
+      for (Future<Boolean> result : results)
+        subscribed += result.get(TIMEOUT, TimeUnit.MILLISECONDS) ? 1 : 0;
+
+      assertEquals(MAX_CONNECTIONS, subscribed, "Number of accepted streams doesn't match.");
+      assertEquals(open + MAX_CONNECTIONS, connections(), "Number of open streams doesn't match.");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private double connections() {
+    return registry.get("notes.stream.connections").gauge().value();
+  }
+
+  private void waitForConnections(double expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (connections() < expected && System.currentTimeMillis() < deadline)
+      Thread.sleep(10);
+
+    assertEquals(expected, connections(), "Number of open streams doesn't match.");
+  }
+}
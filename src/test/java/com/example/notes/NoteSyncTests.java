@@ -0,0 +1,140 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.config.MongoMigrations;
+import com.example.notes.config.SyncExpiredException;
+import com.example.notes.dto.NoteSyncDTO;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.NoteTombstoneRepo;
+import com.example.notes.repo.SyncToken;
+import com.example.notes.repo.UserNoteRepo;
+import com.example.notes.service.UserNoteService;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:/test.properties", properties = "notes.sync.lag=0s")
+public class NoteSyncTests extends BaseAppTest {
+
+  private static final String OWNER = "sync-owner";
+  private static final String OTHER = "sync-other";
+  private static final int NOTES = 5000;
+
+  @Autowired
+  private UserNoteService noteService;
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  @Autowired
+  private NoteTombstoneRepo tombstoneRepo;
+
+  @Autowired
+  private MongoTemplate mongo;
+
+  @Autowired
+  private MongoMigrations migrations;
+
+  @Test
+  void testSmallDeltaAfterFullSync() throws Exception {
+    List<UserNote> seed = new ArrayList<>();
+    for (int i = 0; i < NOTES; i++)
+      seed.add(new UserNote(OWNER, "sync" + i));
+    List<String> ids = unRepo.insert(seed).stream().map(UserNote::getId).toList();
+    String shared = noteService.add(OTHER, "shared").id();
+    noteService.share(OTHER, shared, OWNER);
+
+    // Full sync page by page
+    Set<String> all = new HashSet<>();
+    String token = null;
+    int pages = 0;
+    NoteSyncDTO sync;
+    do {
+      sync = noteService.sync(OWNER, token, 1000);
+      sync.notes().forEach(dto -> assertTrue(all.add(dto.id()), "Note synced twice."));
+      token = sync.token();
+      pages++;
+    } while (sync.more());
+    assertEquals(NOTES + 1, all.size(), "Number of synced notes doesn't match.");
+    assertEquals(6, pages, "Number of sync pages doesn't match.");
+
+    // Nothing changed
+    Thread.sleep(5);
+    sync = noteService.sync(OWNER, token, 1000);
+    assertTrue(sync.notes().isEmpty() && sync.deleted().isEmpty(), "No changes are expected.");
+    token = sync.token();
+
+    // Small delta
+    Thread.sleep(5);
+    noteService.update(OWNER, new UserNoteDTO(ids.get(10), "changed"));
+    noteService.share(OWNER, ids.get(20), OTHER);
+    noteService.delete(OWNER, ids.get(30));
+    noteService.unshare(OTHER, shared, OWNER);
+    String added = noteService.add(OWNER, "added").id();
+
+    Thread.sleep(5);
+    sync = noteService.sync(OWNER, token, 1000);
+    assertFalse(sync.more(), "Single page of changes is expected.");
+    assertEquals(Set.of(ids.get(10), ids.get(20), added),
+        new HashSet<>(sync.notes().stream().map(UserNoteDTO::id).toList()),
+        "Changed notes don't match.");
+    assertEquals(Set.of(ids.get(30), shared), new HashSet<>(sync.deleted()),
+        "Deleted notes don't match.");
+
+    // Shared user sees shared note and nothing about deleted one
+    sync = noteService.sync(OTHER, null, 1000);
+    assertEquals(Set.of(ids.get(20), shared),
+        new HashSet<>(sync.notes().stream().map(UserNoteDTO::id).toList()),
+        "Notes of shared user don't match.");
+  }
+
+  @Test
+  void testNoteWithoutUpdateTime() throws Exception {
+    // Note written before update time was stored
+    ObjectId id = new ObjectId();
+    mongo.getCollection(mongo.getCollectionName(UserNote.class)).insertOne(
+        new Document("_id", id).append("owner", OWNER).append("users", List.of())
+            .append("note", "legacy"));
+    String added = noteService.add(OWNER, "added").id();
+
+    assertEquals(1, migrations.backfillUpdated(), "Number of migrated notes doesn't match.");
+    assertEquals(0, migrations.backfillUpdated(), "Migration is expected to run once.");
+    assertEquals(id.getDate().toInstant(), unRepo.findById(id.toHexString()).get().getUpdated(),
+        "Update time is expected from note id.");
+
+    Thread.sleep(5);
+    NoteSyncDTO sync = noteService.sync(OWNER, null, 1000);
+    assertEquals(List.of(id.toHexString(), added),
+        sync.notes().stream().map(UserNoteDTO::id).toList(), "Synced notes don't match.");
+  }
+
+  @Test
+  void testExpiredToken() {
+    Instant old = Instant.now().minusSeconds(30 * 24 * 3600);
+    assertThrows(SyncExpiredException.class,
+        () -> noteService.sync(OWNER, new SyncToken(old, null, old).encode(), null));
+  }
+
+  @Override
+  @AfterEach
+  void cleanup() {
+    super.cleanup();
+    tombstoneRepo.deleteAll();
+  }
+}
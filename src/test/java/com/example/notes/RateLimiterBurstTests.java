@@ -0,0 +1,148 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+
+/**
+ * Sends burst of requests over the limit and samples number of busy Tomcat threads, first to the
+ * notes API with fail-fast keyed limiter and then to test endpoint with plain resilience4j limiter
+ * that waits up to 5s for permits. Waiting limiter parks thread of every request it reserves
+ * permits for, failing fast returns rejected requests right away.
+ */
+@Tag("perf")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {"resilience4j.ratelimiter.instances.api.limit-for-period=10",
+    "resilience4j.ratelimiter.instances.api.limit-refresh-period=1s",
+    "resilience4j.ratelimiter.instances.api.timeout-duration=0s"})
+public class RateLimiterBurstTests extends BaseAppTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RateLimiterBurstTests.class);
+
+  private static final int BURST = 100;
+
+  private static final Duration WAIT = Duration.ofSeconds(5);
+
+  private static final String BLOCKING_URL = Constants.BASE_URL + "/blocking";
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private ServletWebServerApplicationContext context;
+
+  // Result of one burst
+  private record Burst(int rejected, long elapsed, int peak) {}
+
+  /**
+   * Blocking baseline, endpoint with the same limit that waits for permits on request thread
+   */
+  @TestConfiguration
+  static class BlockingLimiterConfig {
+
+    @Bean
+    RouterFunction<ServerResponse> blockingLimited() {
+      RateLimiter limiter = RateLimiter.of("blocking", RateLimiterConfig.custom()
+          .limitForPeriod(10).limitRefreshPeriod(Duration.ofSeconds(1)).timeoutDuration(WAIT)
+          .build());
+      return RouterFunctions.route()
+          .GET(BLOCKING_URL, request -> limiter.acquirePermission() ? ServerResponse.ok().build()
+              : ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                  .header(HttpHeaders.RETRY_AFTER, "1").build())
+          .build();
+    }
+  }
+
+  @Test
+  void testBurstDoesNotHoldThreads() throws Exception {
+    String cookie = createTestUser()[0];
+    ThreadPoolExecutor tomcat = (ThreadPoolExecutor) ((TomcatWebServer) context.getWebServer())
+        .getTomcat().getConnector().getProtocolHandler().getExecutor();
+
+    Burst failFast = burst(cookie, tomcat, Constants.BASE_URL + Constants.BASE_NOTES_URL);
+    assertTrue(failFast.rejected() > BURST / 2, "Expected most of the burst to be rejected.");
+    assertTrue(failFast.elapsed() < WAIT.toMillis(),
+        "Rejected requests must not wait for the limiter timeout.");
+    assertTrue(failFast.peak() < tomcat.getMaximumPoolSize(),
+        "Burst must not exhaust Tomcat pool.");
+
+    Burst waiting = burst(cookie, tomcat, BLOCKING_URL);
+    assertTrue(waiting.elapsed() >= WAIT.toMillis() / 2,
+        "Expected requests to wait for reserved permits.");
+    assertTrue(failFast.peak() * 2 < waiting.peak(),
+        "Expected fail-fast peak of busy threads to be much lower than waiting one.");
+  }
+
+  private Burst burst(String cookie, ThreadPoolExecutor tomcat, String url) throws Exception {
+    // Sample busy worker threads while burst is running
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicInteger peak = new AtomicInteger();
+    Thread sampler = new Thread(() -> {
+      while (running.get()) {
+        peak.accumulateAndGet(tomcat.getActiveCount(), Math::max);
+        Thread.onSpinWait();
+      }
+    });
+    sampler.start();
+
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + url))
+        .header("Cookie", cookie).GET().build();
+
+    long start = System.nanoTime();
+    List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+    for (int i = 0; i < BURST; i++)
+      futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+
+    int rejected = 0;
+    for (CompletableFuture<HttpResponse<String>> f : futures) {
+      HttpResponse<String> resp = f.get();
+      if (resp.statusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+        rejected++;
+        assertNotNull(resp.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null),
+            "Expected Retry-After header for rejected request.");
+      } else {
+        assertEquals(HttpStatus.OK.value(), resp.statusCode(), "Unexpected response status.");
+      }
+    }
+
+    long elapsed = (System.nanoTime() - start) / 1_000_000;
+    running.set(false);
+    sampler.join();
+    LOG.info("Burst of {} requests to {}: {} rejected in {} ms, peak busy Tomcat threads: {} of {}",
+        BURST, url, rejected, elapsed, peak.get(), tomcat.getMaximumPoolSize());
+
+    return new Burst(rejected, elapsed, peak.get());
+  }
+}
@@ -1,15 +1,22 @@
 package com.example.notes;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
 @TestPropertySource("classpath:/test_rate_limiter.properties")
 public class RateLimiterTests extends BaseAppTest {
 
+  @Autowired
+  private MeterRegistry registry;
+
   @Test
   void testRateLimiter() {
     String cookie = createTestUser()[0];
@@ -20,4 +27,35 @@ public class RateLimiterTests extends BaseAppTest {
     // The second search request should be blocked
     searchAllNotes(cookie, HttpStatus.TOO_MANY_REQUESTS);
   }
+
+  @Test
+  void testRateLimiterPerUser() {
+    String cookie1 = createTestUser()[0];
+    String cookie2 = createTestUser("user2", "test2")[0];
+
+    // First user is throttled after the first request
+    searchAllNotes(cookie1);
+    searchAllNotes(cookie1, HttpStatus.TOO_MANY_REQUESTS);
+
+    // Second user has its own limit
+    searchAllNotes(cookie2);
+    searchAllNotes(cookie2, HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @Test
+  void testRejectedCallsCountedPerOperation() {
+    double rejected = rejected("findAll");
+    String cookie = createTestUser()[0];
+
+    searchAllNotes(cookie);
+    searchAllNotes(cookie, HttpStatus.TOO_MANY_REQUESTS);
+
+    assertEquals(rejected + 1, rejected("findAll"), "Rejected findAll calls don't match.");
+  }
+
+  private double rejected(String operation) {
+    Counter counter = registry.find("notes.ratelimiter.calls").tag("name", "api")
+        .tag("operation", operation).tag("result", "rejected").counter();
+    return counter == null ? 0 : counter.count();
+  }
 }
@@ -0,0 +1,111 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.DispatcherHandler;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.UserNoteDTO;
+import com.mongodb.reactivestreams.client.MongoClient;
+
+/**
+ * Same API in reactive mode
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@TestPropertySource("classpath:/test.properties")
+public class ReactiveModeTests extends BaseAppTest {
+
+  private static final String NOTES_URL = Constants.BASE_URL + Constants.BASE_NOTES_URL;
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private ApplicationContext context;
+
+  @Test
+  void testNotesApi() {
+    assertNotNull(context.getBean(DispatcherHandler.class), "Expected WebFlux dispatcher.");
+    assertNotNull(context.getBean(MongoClient.class),
+        "Expected reactive MongoDB client.");
+
+    // Not authenticated
+    searchAllNotes("", HttpStatus.UNAUTHORIZED);
+    assertEquals(HttpStatus.UNAUTHORIZED, tryLogin("reactive1", "bad").getStatusCode(),
+        "Login of unknown user response status doesn't match.");
+
+    String cookie = createTestUser()[0];
+    ResponseEntity<UserNoteDTO> created = rest.exchange(NOTES_URL, HttpMethod.POST,
+        new HttpEntity<>(new BaseUserNoteDTO("reactive note"), getAuthHttpHeaders(cookie)),
+        UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, created.getStatusCode(), "Create response status doesn't match.");
+    String id = created.getBody().id();
+
+    // Note with ETag and revalidation
+    ResponseEntity<UserNoteDTO> found = rest.exchange(NOTES_URL + "/" + id, HttpMethod.GET,
+        getHttpEntity(cookie), UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, found.getStatusCode(), "Find response status doesn't match.");
+    assertEquals("reactive note", found.getBody().note(), "Note text doesn't match.");
+    String etag = found.getHeaders().getETag();
+    assertNotNull(etag, "Expected ETag of the note.");
+
+    HttpHeaders headers = getAuthHttpHeaders(cookie);
+    headers.setIfNoneMatch(etag);
+    assertEquals(HttpStatus.NOT_MODIFIED, rest.exchange(NOTES_URL + "/" + id, HttpMethod.GET,
+        new HttpEntity<>(headers), UserNoteDTO.class).getStatusCode(),
+        "Revalidation response status doesn't match.");
+
+    // Update with current and stale ETag
+    assertEquals(HttpStatus.OK, update(cookie, id, "updated", etag).getStatusCode(),
+        "Update response status doesn't match.");
+    assertEquals(HttpStatus.PRECONDITION_FAILED,
+        update(cookie, id, "stale", etag).getStatusCode(),
+        "Stale update response status doesn't match.");
+
+    // List of notes
+    ResponseEntity<UserNoteDTO[]> all =
+        rest.exchange(NOTES_URL, HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO[].class);
+    assertEquals(HttpStatus.OK, all.getStatusCode(), "List response status doesn't match.");
+    assertEquals(1, all.getBody().length, "Number of notes doesn't match.");
+    assertEquals("updated", all.getBody()[0].note(), "Updated note text doesn't match.");
+
+    // Delete and find again
+    assertEquals(HttpStatus.OK, rest.exchange(NOTES_URL + "/" + id, HttpMethod.DELETE,
+        getHttpEntity(cookie), Void.class).getStatusCode(),
+        "Delete response status doesn't match.");
+    assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, rest.exchange(NOTES_URL + "/" + id,
+        HttpMethod.GET, getHttpEntity(cookie), String.class).getStatusCode(),
+        "Find deleted note response status doesn't match.");
+  }
+
+  private ResponseEntity<UserNoteDTO> update(String cookie, String id, String text,
+      String etag) {
+    HttpHeaders headers = getAuthHttpHeaders(cookie);
+    headers.setIfMatch(etag);
+    return rest.exchange(NOTES_URL, HttpMethod.PUT,
+        new HttpEntity<>(new UserNoteDTO(id, text), headers), UserNoteDTO.class);
+  }
+
+  private ResponseEntity<String> tryLogin(String name, String password) {
+    MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+    form.set("name", name);
+    form.set("password", password);
+    return rest.postForEntity(Constants.BASE_URL + Constants.LOGIN_URL,
+        new HttpEntity<>(form, new HttpHeaders()), String.class);
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.UserNoteDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:/test.properties",
+    properties = "notes.timing.sample-rate=1")
+public class RequestTimingTests extends BaseAppTest {
+
+  private static final String SERVER_TIMING = "Server-Timing";
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Test
+  void testServerTimingHeader() {
+    String cookie = createTestUser()[0];
+    ResponseEntity<UserNoteDTO> added = rest.exchange(Constants.BASE_URL + Constants.BASE_NOTES_URL,
+        HttpMethod.POST, new HttpEntity<>(new BaseUserNoteDTO("timed"), getAuthHttpHeaders(cookie)),
+        UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, added.getStatusCode(), "Add note response status doesn't match.");
+
+    // JSON response has every stage
+    String timing = added.getHeaders().getFirst(SERVER_TIMING);
+    assertNotNull(timing, "Server-Timing header is expected.");
+    for (String stage : new String[] {"auth", "ratelimit", "mongo", "serialize", "total"})
+      assertTrue(timing.contains(stage + ";dur="), "Stage " + stage + " is expected: " + timing);
+    assertTrue(timing.matches("[a-z]+;dur=\\d+(, [a-z]+;dur=\\d+)*"),
+        "Whole milliseconds are expected: " + timing);
+
+    // Response without body gets the header after the request
+    ResponseEntity<String> deleted = rest.exchange(
+        Constants.BASE_URL + Constants.BASE_NOTES_URL + "/" + added.getBody().id(),
+        HttpMethod.DELETE, getHttpEntity(cookie), String.class);
+    assertEquals(HttpStatus.OK, deleted.getStatusCode(), "Delete response status doesn't match.");
+    timing = deleted.getHeaders().getFirst(SERVER_TIMING);
+    assertNotNull(timing, "Server-Timing header is expected without body.");
+    assertTrue(timing.contains("mongo;dur="), "Mongo stage is expected: " + timing);
+
+    assertNotNull(registry.find("notes.request.stages").tag("stage", "mongo")
+        .tag("uri", Constants.BASE_URL + Constants.BASE_NOTES_URL).timer(),
+        "Stage timer is expected.");
+  }
+}
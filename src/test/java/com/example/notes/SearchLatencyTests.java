@@ -0,0 +1,103 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.NoteView;
+import com.example.notes.repo.UserNoteRepo;
+
+/**
+ * Compare latency of the text index search with the substring search on seeded data set
+ */
+@Tag("perf")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource("classpath:/test.properties")
+public class SearchLatencyTests extends BaseAppTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SearchLatencyTests.class);
+
+  private static final int USERS = 10;
+  private static final int NOTES = 20000;
+  private static final int MATCHES = 20;
+  private static final int RUNS = 20;
+  private static final String OWNER = "owner0";
+  private static final String WORD = "zebra42";
+
+  private static final String[] VOCABULARY = {"lorem", "ipsum", "dolor", "sit", "amet",
+      "consectetur", "adipiscing", "elit", "sed", "eiusmod", "tempor", "incididunt", "labore",
+      "magna", "aliqua", "veniam", "quis", "nostrud", "exercitation", "ullamco"};
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  @Test
+  void testTextSearchIsFasterThanRegex() {
+    seed();
+
+    Set<String> text =
+        ids(() -> unRepo.findByText(OWNER, WORD, null, 0, MATCHES * 2, NoteView.FULL));
+    Set<String> regex =
+        ids(() -> unRepo.findByQuery(OWNER, WORD, null, MATCHES * 2, NoteView.FULL));
+    assertEquals(MATCHES, text.size(), "Number of text search results doesn't match.");
+    assertEquals(regex, text, "Text and regex search results don't match.");
+
+    long textNanos =
+        measure(() -> unRepo.findByText(OWNER, WORD, null, 0, MATCHES * 2, NoteView.FULL));
+    long regexNanos =
+        measure(() -> unRepo.findByQuery(OWNER, WORD, null, MATCHES * 2, NoteView.FULL));
+    LOG.info("Search latency over {} notes, text: {} us, regex: {} us", NOTES, textNanos / 1000,
+        regexNanos / 1000);
+
+    assertTrue(textNanos < regexNanos, "Expected text search to be faster than regex search.");
+  }
+
+  private void seed() {
+    Random random = new Random(42);
+    List<UserNote> notes = new ArrayList<>(NOTES);
+    for (int i = 0; i < NOTES; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (int j = 0; j < 30; j++)
+        sb.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(' ');
+
+      // Every user owns the same share of notes and only a few of them contain the search word
+      if (i < MATCHES * USERS)
+        sb.append(WORD);
+
+      notes.add(new UserNote("owner" + (i % USERS), sb.toString()));
+    }
+
+    unRepo.insert(notes);
+  }
+
+  private Set<String> ids(Supplier<List<UserNote>> search) {
+    return search.get().stream().map(UserNote::getId).collect(Collectors.toSet());
+  }
+
+  /**
+   * Average duration of the search after warm up
+   */
+  private long measure(Supplier<List<UserNote>> search) {
+    for (int i = 0; i < 5; i++)
+      search.get();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < RUNS; i++)
+      search.get();
+
+    return (System.nanoTime() - start) / RUNS;
+  }
+}
@@ -0,0 +1,160 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compare throughput and tail latency of serving modes at high concurrency. Each mode runs in its
+ * own application with embedded MongoDB and the same data set and load.
+ */
+@Tag("perf")
+public class ServingModeLoadTests {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServingModeLoadTests.class);
+
+  private static final int USERS = 50;
+  private static final int NOTES_PER_USER = 100;
+  private static final int CONCURRENCY = 1000;
+  private static final int CONNECTIONS = 10000;
+  private static final int REQUESTS = 50000;
+  private static final int WARMUP = 5000;
+
+  private record Result(double throughput, long p50, long p99, int errors) {
+  }
+
+  @Test
+  void testServletAndReactiveModes() throws Exception {
+    Result servlet = run("default", CONCURRENCY);
+    Result reactive = run("reactive", CONCURRENCY);
+
+    LOG.info("Servlet mode: {} req/s, p50: {} ms, p99: {} ms", (long) servlet.throughput(),
+        servlet.p50(), servlet.p99());
+    LOG.info("Reactive mode: {} req/s, p50: {} ms, p99: {} ms", (long) reactive.throughput(),
+        reactive.p50(), reactive.p99());
+
+    assertEquals(0, servlet.errors(), "Servlet mode requests failed.");
+    assertEquals(0, reactive.errors(), "Reactive mode requests failed.");
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void testVirtualThreadsAt10kConnections() throws Exception {
+    Result platform = run("default", CONNECTIONS);
+    Result virtual = run("virtual", CONNECTIONS);
+
+    LOG.info("Platform threads: {} req/s, p50: {} ms, p99: {} ms", (long) platform.throughput(),
+        platform.p50(), platform.p99());
+    LOG.info("Virtual threads: {} req/s, p50: {} ms, p99: {} ms", (long) virtual.throughput(),
+        virtual.p50(), virtual.p99());
+
+    assertEquals(0, platform.errors(), "Platform threads requests failed.");
+    assertEquals(0, virtual.errors(), "Virtual threads requests failed.");
+  }
+
+  private Result run(String profile, int concurrency) throws Exception {
+    try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(UserNotesApp.class)
+        .profiles(profile)
+        .properties("server.port=0", "spring.config.import=classpath:/test.properties",
+            // Measure serving mode, not the rate limiter
+            "resilience4j.ratelimiter.instances.api.limit-for-period=1000000",
+            "resilience4j.ratelimiter.instances.login.limit-for-period=1000000",
+            "notes.cache.enabled=false", "server.tomcat.threads.max=200")
+        .run()) {
+      String base = "http://localhost:"
+          + ((WebServerApplicationContext) ctx).getWebServer().getPort() + Constants.BASE_URL;
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+          .connectTimeout(Duration.ofSeconds(10)).build();
+
+      List<String> cookies = seed(client, base, profile);
+      load(client, base, cookies, WARMUP, concurrency);
+      return load(client, base, cookies, REQUESTS, concurrency);
+    }
+  }
+
+  private List<String> seed(HttpClient client, String base, String profile) throws Exception {
+    List<String> cookies = new ArrayList<>();
+    for (int i = 0; i < USERS; i++) {
+      String name = profile + "-user" + i;
+      send(client, HttpRequest.newBuilder(URI.create(base + Constants.SIGNUP_URL))
+          .header("Content-Type", "application/json")
+          .POST(BodyPublishers.ofString("{\"name\":\"" + name + "\",\"password\":\"pwd\"}"))
+          .build());
+
+      String form = "name=" + URLEncoder.encode(name, StandardCharsets.UTF_8) + "&password=pwd";
+      HttpResponse<String> login =
+          send(client, HttpRequest.newBuilder(URI.create(base + Constants.LOGIN_URL))
+              .header("Content-Type", "application/x-www-form-urlencoded")
+              .POST(BodyPublishers.ofString(form)).build());
+      String cookie = login.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0];
+      cookies.add(cookie);
+
+      for (int j = 0; j < NOTES_PER_USER; j++)
+        send(client, HttpRequest.newBuilder(URI.create(base + Constants.BASE_NOTES_URL))
+            .header("Content-Type", "application/json").header("Cookie", cookie)
+            .POST(BodyPublishers.ofString("{\"note\":\"note " + j + "\"}")).build());
+    }
+
+    return cookies;
+  }
+
+  private Result load(HttpClient client, String base, List<String> cookies, int requests,
+      int concurrency) throws Exception {
+    Semaphore inFlight = new Semaphore(concurrency);
+    AtomicInteger errors = new AtomicInteger();
+    long[] latencies = new long[requests];
+    List<CompletableFuture<?>> futures = new ArrayList<>(requests);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      inFlight.acquire();
+      int index = i;
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create(base + Constants.BASE_NOTES_URL + "?limit=20"))
+              .header("Cookie", cookies.get(i % cookies.size())).GET().build();
+      long sent = System.nanoTime();
+      futures.add(client.sendAsync(request, BodyHandlers.ofString()).whenComplete((res, e) -> {
+        latencies[index] = System.nanoTime() - sent;
+        if (e != null || res.statusCode() != 200)
+          errors.incrementAndGet();
+        inFlight.release();
+      }));
+    }
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((r, e) -> r).get();
+    long elapsed = System.nanoTime() - start;
+
+    Arrays.sort(latencies);
+    return new Result(requests * 1e9 / elapsed, latencies[requests / 2] / 1_000_000,
+        latencies[(int) (requests * 0.99)] / 1_000_000, errors.get());
+  }
+
+  private HttpResponse<String> send(HttpClient client, HttpRequest request) throws Exception {
+    HttpResponse<String> res = client.send(request, BodyHandlers.ofString());
+    assertTrue(res.statusCode() == 200, "Unexpected status " + res.statusCode() + " for "
+        + request.method() + " " + request.uri());
+    return res;
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.config.UserNotesException;
+import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.repo.UserNoteRepo;
+import com.example.notes.service.UserNoteService;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource("classpath:/test.properties")
+public class UserNoteServiceTests extends BaseAppTest {
+
+  private static final int THREADS = 16;
+
+  @Autowired
+  private UserNoteService noteService;
+
+  @Autowired
+  private UserNoteRepo unRepo;
+
+  @Test
+  void testConcurrentShareKeepsAllUsers() throws Exception {
+    String id = noteService.add("owner", "shared").id();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      Set<String> users = new HashSet<>();
+      for (int i = 0; i < THREADS; i++) {
+        String user = "user" + i;
+        users.add(user);
+        futures.add(executor.submit(() -> {
+          start.await();
+          noteService.share("owner", id, user);
+          return null;
+        }));
+      }
+      start.countDown();
+
+      for (Future<?> f : futures)
+        f.get();
+
+      assertEquals(users, unRepo.findById(id).get().getUsers(), "Shared users don't match.");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testWritesRequireOwner() throws Exception {
+    UserNoteDTO dto = noteService.add("owner", "owned");
+    noteService.share("owner", dto.id(), "other");
+
+    // Shared user can read but can't change the note
+    assertThrows(UserNotesException.class,
+        () -> noteService.update("other", new UserNoteDTO(dto.id(), "changed")));
+    assertThrows(UserNotesException.class, () -> noteService.share("other", dto.id(), "third"));
+    assertThrows(UserNotesException.class, () -> noteService.delete("other", dto.id()));
+    assertEquals("owned", noteService.find("other", dto.id()).note(), "Note text doesn't match.");
+
+    UserNoteDTO updated = noteService.update("owner", new UserNoteDTO(dto.id(), "changed"));
+    assertEquals("changed", updated.note(), "Updated note text doesn't match.");
+    noteService.delete("owner", dto.id());
+    assertThrows(UserNotesException.class, () -> noteService.find("owner", dto.id()));
+  }
+}
@@ -2,26 +2,59 @@ package com.example.notes;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition.TextIndexDefinitionBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import com.example.notes.config.MongoIndexManager;
 import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.BulkOperationDTO;
+import com.example.notes.dto.BulkOperationDTO.Type;
+import com.example.notes.dto.BulkRequestDTO;
+import com.example.notes.dto.BulkResultDTO;
 import com.example.notes.dto.UserDTO;
 import com.example.notes.dto.UserNoteDTO;
+import com.example.notes.dto.UserNoteSummaryDTO;
 import com.example.notes.model.User;
+import com.example.notes.model.UserNote;
+import com.example.notes.repo.NoteView;
 import com.example.notes.repo.UserNoteRepo;
 import com.example.notes.repo.UserRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.reactivestreams.client.MongoClient;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
 @TestPropertySource("classpath:/test.properties")
@@ -39,6 +72,18 @@ class UserNotesAppTests {
   @Autowired
   private UserNoteRepo unRepo;
 
+  @Autowired
+  private ObjectMapper mapper;
+
+  @Autowired
+  private MongoTemplate mongo;
+
+  @Autowired
+  private MongoIndexManager indexManager;
+
+  @Autowired
+  private ApplicationContext context;
+
   /**
    * Test the Global Scenario with all UserNote API
    */
@@ -85,10 +130,11 @@ class UserNotesAppTests {
     findAll(cookie3, 1, "third user after second note shared with third user.");
 
     // Test different search by query
-    search(cookie1, "test", 1, text2);
+    search(cookie1, "test456", 1, text2);
     search(cookie1, "qq", 0, null);
-    search(cookie2, "789", 1, text3);
+    search(cookie2, "test789", 1, text3);
     search(cookie3, "ipsum", 1, text4);
+    search(cookie3, "\"dolor sit\"", 1, text4);
 
     // Delete the second note from first user
     deleteNote(cookie1, idx12);
@@ -130,6 +176,281 @@ class UserNotesAppTests {
             HttpMethod.DELETE, getHttpEntity(cookie2), String.class).getStatusCode());
   }
 
+  @Test
+  void testPagination() {
+    String cookie = createTestUser()[0];
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 5; i++)
+      ids.add(addNewNote(cookie, "page" + i));
+
+    for (String sort : new String[] {"id", "updated"}) {
+      Set<String> found = new HashSet<>();
+      String after = null;
+      int pages = 0;
+      do {
+        ResponseEntity<UserNoteDTO[]> resp = rest.exchange(
+            Constants.BASE_URL + Constants.BASE_NOTES_URL + "?limit=2&sort=" + sort
+                + (after == null ? "" : "&after=" + after),
+            HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO[].class);
+        assertEquals(HttpStatus.OK, resp.getStatusCode(), "Page response status doesn't match.");
+        for (UserNoteDTO dto : resp.getBody())
+          assertTrue(found.add(dto.id()), "Note returned twice: " + dto.id());
+
+        after = resp.getHeaders().getFirst(Constants.NEXT_CURSOR_HEADER);
+        pages++;
+      } while (after != null);
+
+      assertEquals(3, pages, "Number of pages doesn't match for sort: " + sort);
+      assertEquals(ids, found, "Paged notes don't match for sort: " + sort);
+    }
+  }
+
+  @Test
+  void testPaginationWithoutUpdateTime() {
+    String cookie = createTestUser()[0];
+    List<String> ids = new ArrayList<>();
+    // Notes written before update time was stored are sorted first
+    for (int i = 0; i < 3; i++) {
+      ObjectId id = new ObjectId();
+      mongo.getCollection(mongo.getCollectionName(UserNote.class)).insertOne(new Document("_id", id)
+          .append("owner", TEST_USER).append("users", List.of()).append("note", "legacy" + i));
+      ids.add(id.toHexString());
+    }
+    for (int i = 0; i < 2; i++)
+      ids.add(addNewNote(cookie, "page" + i));
+
+    List<String> found = new ArrayList<>();
+    String after = null;
+    do {
+      ResponseEntity<UserNoteDTO[]> resp = rest.exchange(
+          Constants.BASE_URL + Constants.BASE_NOTES_URL + "?limit=2&sort=updated"
+              + (after == null ? "" : "&after=" + after),
+          HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO[].class);
+      assertEquals(HttpStatus.OK, resp.getStatusCode(), "Page response status doesn't match.");
+      for (UserNoteDTO dto : resp.getBody())
+        found.add(dto.id());
+
+      after = resp.getHeaders().getFirst(Constants.NEXT_CURSOR_HEADER);
+    } while (after != null);
+
+    assertEquals(ids, found, "Paged notes don't match.");
+  }
+
+  @Test
+  void testInvalidParameters() {
+    String cookie = createTestUser()[0];
+    String invalid = Base64.getUrlEncoder().encodeToString("ID::0:x".getBytes());
+
+    for (String url : new String[] {Constants.BASE_NOTES_URL + "?after=%%%",
+        Constants.BASE_NOTES_URL + "?after=" + invalid, Constants.BASE_NOTES_URL + "?sort=size",
+        Constants.BASE_NOTES_URL + "?sort=score", Constants.BASE_NOTES_URL + "?view=large",
+        Constants.SEARCH_NOTES_URL + "?query=test&lang=klingon",
+        Constants.SEARCH_NOTES_URL + "?query=test&after=" + invalid,
+        Constants.SYNC_NOTES_URL + "?token=" + invalid})
+      assertEquals(HttpStatus.BAD_REQUEST, rest.exchange(Constants.BASE_URL + url,
+          HttpMethod.GET, getHttpEntity(cookie), String.class).getStatusCode(),
+          "Response status doesn't match for " + url);
+  }
+
+  @Test
+  void testSummaryView() {
+    String cookie = createTestUser()[0];
+    // Multi-byte characters must not be split by preview
+    String text = "summary " + "\u00e9\ud83d\ude00".repeat(NoteView.PREVIEW_LENGTH);
+    String id = addNewNote(cookie, text);
+    String preview = text.substring(0, text.offsetByCodePoints(0, NoteView.PREVIEW_LENGTH));
+
+    for (String url : new String[] {Constants.BASE_NOTES_URL,
+        Constants.SEARCH_NOTES_URL + "?query=summary"}) {
+      ResponseEntity<UserNoteSummaryDTO[]> resp =
+          rest.exchange(Constants.BASE_URL + url + (url.contains("?") ? "&" : "?") + "view=summary",
+              HttpMethod.GET, getHttpEntity(cookie), UserNoteSummaryDTO[].class);
+      assertEquals(HttpStatus.OK, resp.getStatusCode(), "Summary response status doesn't match.");
+      assertEquals(1, resp.getBody().length, "Number of summaries doesn't match for " + url);
+      assertEquals(id, resp.getBody()[0].id(), "Summary id doesn't match.");
+      assertEquals(preview, resp.getBody()[0].preview(), "Preview doesn't match for " + url);
+    }
+
+    // Cached summary page is never returned as full notes
+    assertEquals(text, findAll(cookie, 1, "full view")[0].note(), "Full note text doesn't match.");
+    search(cookie, "summary", 1, text);
+    findNote(cookie, id, text);
+  }
+
+  @Test
+  void testExport() throws Exception {
+    String cookie = createTestUser()[0];
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 3; i++)
+      ids.add(addNewNote(cookie, "export" + i));
+
+    ResponseEntity<String> resp = rest.exchange(Constants.BASE_URL + Constants.EXPORT_NOTES_URL,
+        HttpMethod.GET, getHttpEntity(cookie), String.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Export response status doesn't match.");
+    assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(resp.getHeaders().getContentType()),
+        "Export content type doesn't match.");
+
+    Set<String> found = new HashSet<>();
+    for (String line : resp.getBody().split("\n"))
+      found.add(mapper.readValue(line, UserNoteDTO.class).id());
+    assertEquals(ids, found, "Exported notes don't match.");
+  }
+
+  @Test
+  void testBulk() {
+    String cookie = createTestUser()[0];
+    String id = addNewNote(cookie, "bulk1");
+    String other = new ObjectId().toHexString();
+
+    BulkRequestDTO req = new BulkRequestDTO(List.of(
+        new BulkOperationDTO(Type.CREATE, null, "bulk2", null),
+        new BulkOperationDTO(Type.UPDATE, id, "bulk3", null),
+        new BulkOperationDTO(Type.SHARE, id, null, "user2"),
+        new BulkOperationDTO(Type.DELETE, other, null, null),
+        new BulkOperationDTO(Type.UPDATE, id, null, null)));
+    ResponseEntity<BulkResultDTO[]> resp =
+        rest.exchange(Constants.BASE_URL + Constants.BULK_NOTES_URL, HttpMethod.POST,
+            new HttpEntity<>(req, getAuthHttpHeaders(cookie)), BulkResultDTO[].class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Bulk response status doesn't match.");
+
+    BulkResultDTO[] results = resp.getBody();
+    assertEquals(5, results.length, "Number of bulk results doesn't match.");
+    int[] expected = {200, 200, 200, 404, 400};
+    for (int i = 0; i < expected.length; i++)
+      assertEquals(expected[i], results[i].status(), "Bulk status doesn't match for index: " + i);
+
+    findNote(cookie, results[0].id(), "bulk2");
+    findNote(cookie, id, "bulk3");
+    assertTrue(unRepo.findById(id).get().getUsers().contains("user2"),
+        "Note is expected to be shared.");
+  }
+
+  @Test
+  void testConditionalRequests() {
+    String cookie = createTestUser()[0];
+    String id = addNewNote(cookie, "etag1");
+    String noteUrl = Constants.BASE_URL + Constants.BASE_NOTES_URL + "/" + id;
+    String listUrl = Constants.BASE_URL + Constants.BASE_NOTES_URL;
+
+    ResponseEntity<UserNoteDTO> note =
+        rest.exchange(noteUrl, HttpMethod.GET, getHttpEntity(cookie), UserNoteDTO.class);
+    String noteTag = note.getHeaders().getETag();
+    assertNotNull(noteTag, "Note ETag is expected.");
+    ResponseEntity<String> list =
+        rest.exchange(listUrl, HttpMethod.GET, getHttpEntity(cookie), String.class);
+    String listTag = list.getHeaders().getETag();
+    assertNotNull(listTag, "List ETag is expected.");
+
+    // Nothing changed
+    assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(cookie, noteUrl, noteTag),
+        "Note is expected to be not modified.");
+    assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(cookie, listUrl, listTag),
+        "List is expected to be not modified.");
+
+    // Update with current ETag succeeds and changes both ETags
+    HttpHeaders headers = getAuthHttpHeaders(cookie);
+    headers.setIfMatch(noteTag);
+    ResponseEntity<UserNoteDTO> resp = rest.exchange(listUrl, HttpMethod.PUT,
+        new HttpEntity<>(new UserNoteDTO(id, "etag2"), headers), UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Update with If-Match doesn't match.");
+    assertEquals(HttpStatus.OK, conditionalGet(cookie, noteUrl, noteTag),
+        "Note is expected to be modified.");
+    assertEquals(HttpStatus.OK, conditionalGet(cookie, listUrl, listTag),
+        "List is expected to be modified.");
+
+    // Update with old ETag fails
+    resp = rest.exchange(listUrl, HttpMethod.PUT,
+        new HttpEntity<>(new UserNoteDTO(id, "etag3"), headers), UserNoteDTO.class);
+    assertEquals(HttpStatus.PRECONDITION_FAILED, resp.getStatusCode(),
+        "Update with old If-Match doesn't match.");
+    findNote(cookie, id, "etag2");
+  }
+
+  @Test
+  void testEventStream() throws Exception {
+    String[] owner = createTestUser();
+    String[] shared = createTestUser("user2", "test2");
+
+    // Shared user listens for changes
+    HttpRequest request = HttpRequest
+        .newBuilder(URI.create(rest.getRootUri() + Constants.BASE_URL + Constants.STREAM_NOTES_URL))
+        .header("Cookie", shared[0]).header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+        .build();
+    HttpResponse<Stream<String>> resp =
+        HttpClient.newHttpClient().send(request, BodyHandlers.ofLines());
+    assertEquals(HttpStatus.OK.value(), resp.statusCode(), "Stream response status doesn't match.");
+
+    String id = addNewNote(owner[0], "stream1");
+    shareNote(owner[0], id, shared[1]);
+
+    try (Stream<String> lines = resp.body()) {
+      String data = CompletableFuture.supplyAsync(() -> lines
+          .filter(line -> line.startsWith("data:")).findFirst().orElse(null))
+          .get(10, TimeUnit.SECONDS);
+      assertNotNull(data, "Share event is expected.");
+      assertTrue(data.contains("SHARE") && data.contains(id), "Share event doesn't match.");
+    }
+  }
+
+  @Test
+  void testReadiness() {
+    ResponseEntity<String> resp = rest.getForEntity("/actuator/health/readiness", String.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Readiness status doesn't match.");
+
+    // All required indexes created at startup
+    resp = rest.getForEntity("/actuator/health/mongoIndex", String.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode(), "Index health status doesn't match.");
+    assertTrue(resp.getBody().contains("note_search_text"),
+        "Expected text index in health details.");
+  }
+
+  @Test
+  void testServletModeHasNoReactiveMongoClient() {
+    assertEquals(0, context.getBeanNamesForType(MongoClient.class).length,
+        "Reactive MongoDB client isn't expected in servlet mode.");
+    assertEquals(0, context.getBeanNamesForType(ReactiveMongoTemplate.class).length,
+        "Reactive MongoDB template isn't expected in servlet mode.");
+  }
+
+  @Test
+  void testIndexReplacement() {
+    // Database indexed by the previous version
+    IndexOperations ops = mongo.indexOps(UserNote.class);
+    ops.dropIndex("note_search_text");
+    ops.ensureIndex(new TextIndexDefinitionBuilder().onField("note").named("note_text").build());
+
+    try {
+      // Older index is kept on start and still serves readiness
+      indexManager.ensureIndexes(false);
+      List<String> names = ops.getIndexInfo().stream().map(IndexInfo::getName).toList();
+      assertTrue(names.contains("note_text") && !names.contains("note_search_text"),
+          "Older text index is expected to be kept: " + names);
+      assertEquals(HttpStatus.OK,
+          rest.getForEntity("/actuator/health/readiness", String.class).getStatusCode(),
+          "Readiness status doesn't match with older text index.");
+    } finally {
+      indexManager.ensureIndexes(true);
+    }
+
+    List<String> names = ops.getIndexInfo().stream().map(IndexInfo::getName).toList();
+    assertTrue(names.contains("note_search_text") && !names.contains("note_text"),
+        "Text index is expected to be replaced: " + names);
+  }
+
+  @Test
+  void testLoginAfterUnknownUser() {
+    // Unknown user is cached as missing
+    MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+    form.set("name", TEST_USER);
+    form.set("password", TEST_PWD);
+    ResponseEntity<String> resp = rest.postForEntity(Constants.BASE_URL + Constants.LOGIN_URL,
+        new HttpEntity<>(form, new HttpHeaders()), String.class);
+    assertEquals(HttpStatus.UNAUTHORIZED, resp.getStatusCode(), "Unknown user login must fail.");
+
+    // Signup evicts cached unknown user, so login works right away
+    createTestUser();
+  }
+
   // @Test
   // TODO Move into new file
   void testRateLimiter() {
@@ -142,6 +463,13 @@ class UserNotesAppTests {
     searchAllNotes(cookie, HttpStatus.TOO_MANY_REQUESTS);
   }
 
+  private HttpStatus conditionalGet(String cookie, String url, String etag) {
+    HttpHeaders headers = getAuthHttpHeaders(cookie);
+    headers.setIfNoneMatch(etag);
+    return HttpStatus.valueOf(rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+        String.class).getStatusCode().value());
+  }
+
   private void shareNote(String cookie, String noteId, String userId) {
     assertEquals(HttpStatus.OK,
         rest.exchange(
@@ -0,0 +1,111 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.config.UserNotesException;
+import com.example.notes.dto.UserDTO;
+import com.example.notes.repo.UserRepo;
+import com.example.notes.service.UserService;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource("classpath:/test.properties")
+public class UserServiceTests extends BaseAppTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UserServiceTests.class);
+
+  private static final int THREADS = 16;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Test
+  void testConcurrentSignupSameName() throws Exception {
+    List<Boolean> results = runConcurrently(THREADS, THREADS, i -> {
+      try {
+        userService.createUser(new UserDTO("same", "test" + i));
+        return true;
+      } catch (UserNotesException e) {
+        return false;
+      }
+    });
+
+    assertEquals(1, results.stream().filter(r -> r).count(), "Expected exactly one signup.");
+    assertEquals(1, userRepo.findAll().stream().filter(u -> u.getName().equals("same")).count(),
+        "Expected single user with the same name.");
+  }
+
+  @Tag("perf")
+  @Test
+  void testSignupThroughputScales() throws Exception {
+    int cores = Runtime.getRuntime().availableProcessors();
+    Assumptions.assumeTrue(cores > 1, "Throughput can't scale on single core.");
+
+    int users = cores * 8;
+    long single = measure("single", 1, users);
+    long parallel = measure("parallel", cores, users);
+    LOG.info("Signup of {} users, single thread: {} ms, {} threads: {} ms", users, single, cores,
+        parallel);
+
+    assertEquals(users * 2, userRepo.count(), "Number of users doesn't match.");
+    assertTrue(parallel * 1.5 < single, "Expected concurrent signup to scale with cores.");
+  }
+
+  private long measure(String prefix, int threads, int users) throws Exception {
+    long start = System.nanoTime();
+    List<Boolean> results = runConcurrently(threads, users, i -> {
+      userService.createUser(new UserDTO(prefix + i, "test"));
+      return true;
+    });
+    assertEquals(users, results.size(), "Number of signups doesn't match.");
+
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private interface Task {
+    Boolean run(int i) throws Exception;
+  }
+
+  private List<Boolean> runConcurrently(int threads, int tasks, Task task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < tasks; i++) {
+        final int idx = i;
+        Callable<Boolean> call = () -> {
+          start.await();
+          return task.run(idx);
+        };
+        futures.add(executor.submit(call));
+      }
+      start.countDown();
+
+      List<Boolean> results = new ArrayList<>();
+      for (Future<Boolean> f : futures)
+        results.add(f.get());
+
+      return results;
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.example.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import com.example.notes.dto.BaseUserNoteDTO;
+import com.example.notes.dto.UserNoteDTO;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Run request paths on virtual threads with JFR recording and fail if any of them parked while
+ * pinned to the carrier thread
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual")
+@TestPropertySource("classpath:/test.properties")
+public class VirtualThreadPinningTests extends BaseAppTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPinningTests.class);
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final String NOTES_URL = Constants.BASE_URL + Constants.BASE_NOTES_URL;
+  private static final int USERS = 8;
+  private static final int ROUNDS = 5;
+
+  @Autowired
+  private TestRestTemplate rest;
+
+  @Autowired
+  private ServletWebServerApplicationContext context;
+
+  @Test
+  void testRequestsDontPinCarrierThreads() throws Exception {
+    assertInstanceOf(VirtualThreadExecutor.class,
+        ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector().getProtocolHandler()
+            .getExecutor(),
+        "Expected Tomcat requests on virtual threads.");
+
+    List<RecordedEvent> pinned;
+    try (Recording recording = new Recording()) {
+      // Any park while pinned, not only the long ones
+      recording.enable(PINNED_EVENT).withStackTrace().withThreshold(Duration.ZERO);
+      recording.start();
+      runRequests();
+      recording.stop();
+
+      Path file = Files.createTempFile("pinning", ".jfr");
+      try {
+        recording.dump(file);
+        pinned = RecordingFile.readAllEvents(file).stream()
+            .filter(e -> e.getEventType().getName().equals(PINNED_EVENT)).toList();
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+
+    pinned.forEach(e -> LOG.error("Virtual thread pinned for {} at {}", e.getDuration(),
+        e.getStackTrace() == null ? "unknown" : e.getStackTrace().getFrames()));
+    assertEquals(0, pinned.size(), "Request path pinned carrier thread.");
+  }
+
+  /**
+   * Signup, login and all note operations from concurrent users, so cache misses, cache hits and
+   * password hashing all run on request threads
+   */
+  private void runRequests() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(USERS);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < USERS; i++) {
+        String name = "pinned" + i;
+        results.add(clients.submit(() -> {
+          String cookie = createTestUser(name, "pwd")[0];
+          for (int j = 0; j < ROUNDS; j++)
+            runNoteRequests(cookie, j);
+          return null;
+        }));
+      }
+
+      for (Future<?> result : results)
+        result.get();
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+
+  private void runNoteRequests(String cookie, int round) {
+    HttpHeaders headers = getAuthHttpHeaders(cookie);
+    ResponseEntity<UserNoteDTO> created = rest.exchange(NOTES_URL, HttpMethod.POST,
+        new HttpEntity<>(new BaseUserNoteDTO("pinned note " + round), headers), UserNoteDTO.class);
+    assertEquals(HttpStatus.OK, created.getStatusCode(), "Create response status doesn't match.");
+    String id = created.getBody().id();
+
+    // Cache miss and hit for list and note
+    for (int i = 0; i < 2; i++) {
+      check(NOTES_URL, HttpMethod.GET, cookie);
+      check(NOTES_URL + "/" + id, HttpMethod.GET, cookie);
+    }
+
+    assertEquals(HttpStatus.OK, rest.exchange(NOTES_URL, HttpMethod.PUT,
+        new HttpEntity<>(new UserNoteDTO(id, "updated " + round), headers), UserNoteDTO.class)
+        .getStatusCode(), "Update response status doesn't match.");
+    check(Constants.BASE_URL + Constants.SEARCH_NOTES_URL + "?query=updated", HttpMethod.GET,
+        cookie);
+    check(Constants.BASE_URL + Constants.SYNC_NOTES_URL, HttpMethod.GET, cookie);
+    check(Constants.BASE_URL + Constants.EXPORT_NOTES_URL, HttpMethod.GET, cookie);
+    check(NOTES_URL + "/" + id, HttpMethod.DELETE, cookie);
+  }
+
+  private void check(String url, HttpMethod method, String cookie) {
+    assertEquals(HttpStatus.OK,
+        rest.exchange(url, method, getHttpEntity(cookie), String.class).getStatusCode(),
+        method + " " + url + " response status doesn't match.");
+  }
+}